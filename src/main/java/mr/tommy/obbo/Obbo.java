@@ -3,13 +3,19 @@ package mr.tommy.obbo;
 import mr.tommy.obbo.mapping.Resolver;
 import mr.tommy.obbo.mapping.resolver.Provider;
 import mr.tommy.obbo.reflection.ClassData;
+import mr.tommy.obbo.reflection.FreezeMode;
+import mr.tommy.obbo.reflection.Linker;
 import mr.tommy.obbo.reflection.ObboInvocationHandler;
+import mr.tommy.obbo.reflection.PrewarmReport;
 import mr.tommy.obbo.util.Utils;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Proxy;
+import java.nio.file.Path;
 import java.util.StringJoiner;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This is the main class of the Project. If you want to start using
@@ -46,6 +52,9 @@ public class Obbo {
     //The resolver this instance is going to be using for
     // parsing the Classes and Method names.
     private final Resolver resolver;
+    //The linker holding the bindings of the wrapping interfaces
+    // shared by all the instances wrapped by this Obbo.
+    private final Linker linker;
 
     /**
      * Creates a new Obbo instance.
@@ -55,6 +64,7 @@ public class Obbo {
      */
     public Obbo(Resolver resolver) {
         this.resolver = resolver;
+        this.linker = new Linker(resolver);
     }
 
     /**
@@ -172,4 +182,144 @@ public class Obbo {
         }
         return wrap(wrappingInterface, instance);
     }
+
+    /**
+     * @return the resolver used by this instance.
+     */
+    public Resolver getResolver() {
+        return resolver;
+    }
+
+    /**
+     * @return the linker holding the bindings of the wrapping interfaces
+     * used by this instance.
+     */
+    public Linker getLinker() {
+        return linker;
+    }
+
+    /**
+     * Sets whether the methods of the wrapping interfaces whose names can't
+     * be resolved, for example because their mapping entry is missing, are
+     * resolved by their signature instead. The member picked is the only
+     * one of the proxied class matching the return and parameter types of
+     * the method, which can be narrowed down using the
+     * {@link mr.tommy.obbo.entity.MemberHint member hints}. Disabled by
+     * default.
+     *
+     * @param signatureFallback whether to enable the signature fallback.
+     */
+    public void setSignatureFallback(boolean signatureFallback) {
+        linker.setSignatureFallback(signatureFallback);
+    }
+
+    /**
+     * Invalidates the given variable of the resolver, so the class and
+     * member names resolved from it, and the bindings of the wrapping
+     * interfaces using them, are resolved again the next time they are
+     * used. Everything else stays cached.
+     *
+     * @param variable name of the variable which changed.
+     *
+     * @see Resolver#invalidate(String)
+     */
+    public void invalidate(String variable) {
+        resolver.invalidate(variable);
+    }
+
+    /**
+     * {@link #prewarm(ForkJoinPool, Class[]) Prewarms} the given wrapping
+     * interfaces in the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param interfaces wrapping interfaces to prewarm.
+     *
+     * @return the report of the members linked and the ones which failed.
+     */
+    public PrewarmReport prewarm(Class<?>... interfaces) {
+        return prewarm(ForkJoinPool.commonPool(), interfaces);
+    }
+
+    /**
+     * Links all the methods and field proxies of the given wrapping
+     * interfaces, and of the wrapping interfaces reachable from their
+     * return and parameter types, before they are used, so the first calls
+     * don't pay for resolving them. Call it before taking traffic, and
+     * before {@link #freeze(FreezeMode) freezing}, and check the report
+     * for the mapping errors.
+     *
+     * @param pool       where to link the members concurrently.
+     * @param interfaces wrapping interfaces to prewarm.
+     *
+     * @return the report of the members linked and the ones which failed.
+     *
+     * @see Linker#prewarm(ForkJoinPool, Class[])
+     */
+    public PrewarmReport prewarm(ForkJoinPool pool, Class<?>... interfaces) {
+        return linker.prewarm(pool, interfaces);
+    }
+
+    /**
+     * Saves the members linked so far to the given file, so the next run
+     * can {@link #loadSnapshot(Path) load} them instead of resolving them
+     * again. Call it once the application is warmed up, before shutting
+     * down.
+     *
+     * @param path of the snapshot file.
+     *
+     * @return the amount of linkages saved.
+     *
+     * @throws IOException if the file could not be written.
+     *
+     * @see Linker#saveSnapshot(Path)
+     */
+    public int saveSnapshot(Path path) throws IOException {
+        return linker.saveSnapshot(path);
+    }
+
+    /**
+     * Links the members saved in the given {@link #saveSnapshot(Path)
+     * snapshot} file without resolving them, as long as their mapping
+     * entries, variables and classes did not change since it was saved.
+     * Call it on startup, before wrapping anything.
+     *
+     * @param path of the snapshot file.
+     *
+     * @return the amount of linkages restored, 0 if there is no snapshot.
+     *
+     * @throws IOException if the file could not be read or is malformed.
+     *
+     * @see Linker#loadSnapshot(Path)
+     */
+    public int loadSnapshot(Path path) throws IOException {
+        return linker.loadSnapshot(path);
+    }
+
+    /**
+     * Freezes this instance once the application is warmed up, falling
+     * back to a slow path which resolves without caching anything not used
+     * before freezing.
+     *
+     * @see #freeze(FreezeMode)
+     */
+    public void freeze() {
+        freeze(FreezeMode.SLOW_PATH);
+    }
+
+    /**
+     * Freezes this instance once the application is warmed up. The bindings
+     * of the wrapping interfaces used so far are compacted into immutable
+     * tables no binding is added to afterwards, so every call only reads
+     * them. The frozen bindings still link again the receiver classes they
+     * had linked when their mappings change. Wrapping methods or receiver classes not used before freezing
+     * either fail with an {@link IllegalStateException} or are resolved
+     * every time without caching them, depending on the given mode.
+     *
+     * @param mode what to do with the methods and classes not used before
+     *             freezing.
+     *
+     * @see Linker#freeze(FreezeMode)
+     */
+    public void freeze(FreezeMode mode) {
+        linker.freeze(mode);
+    }
 }
@@ -0,0 +1,43 @@
+package mr.tommy.obbo.entity;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Hints used to pick the member of a {@link Proxy} method when its name
+ * can't be resolved and the member is looked up by its signature
+ * instead.
+ *
+ * <p>
+ * The signature fallback is opt-in, see
+ * {@link mr.tommy.obbo.Obbo#setSignatureFallback(boolean)}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MemberHint {
+
+    /**
+     * Modifiers the member must have, as in {@link java.lang.reflect.Modifier}.
+     *
+     * @return the mask of the required modifiers.
+     */
+    int modifiers() default 0;
+
+    /**
+     * Modifiers the member must not have, as in {@link java.lang.reflect.Modifier}.
+     *
+     * @return the mask of the excluded modifiers.
+     */
+    int excludedModifiers() default 0;
+
+    /**
+     * Depth of the class declaring the member, 0 being the proxied class
+     * itself, 1 its superclass and so on. Negative to accept any depth.
+     *
+     * @return the depth of the class declaring the member.
+     */
+    int depth() default -1;
+
+}
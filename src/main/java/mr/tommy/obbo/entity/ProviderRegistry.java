@@ -2,16 +2,17 @@ package mr.tommy.obbo.entity;
 
 import mr.tommy.obbo.mapping.resolver.Provider;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class where the code-created providers are going to be registered and retrieved
- * in each instance of {@link mr.tommy.obbo.mapping.Resolver}.
+ * in each instance of {@link mr.tommy.obbo.mapping.Resolver}. Providers can be
+ * registered and retrieved from several threads at the same time.
  */
 public class ProviderRegistry {
     //Internal map of the providers registered.
-    private final Map<String, Provider> providers = new HashMap<>();
+    private final Map<String, Provider> providers = new ConcurrentHashMap<>();
 
     /**
      * Gets the provided registered for that variable name.
@@ -28,9 +29,14 @@ public class ProviderRegistry {
      * Registered the given provided with the specified variable name.
      *
      * @param name of the variable to link the provider with
-     * @param provider which is going to be registered.
+     * @param provider which is going to be registered, null to remove
+     *                 the provider registered at that name.
      */
     public void registerProvider(String name, Provider provider) {
-        providers.put(name, provider);
+        if (provider == null) {
+            providers.remove(name);
+        } else {
+            providers.put(name, provider);
+        }
     }
 }
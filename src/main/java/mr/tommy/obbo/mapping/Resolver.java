@@ -7,6 +7,7 @@ import mr.tommy.obbo.reflection.ClassData;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.function.Consumer;
 
 /**
  * Represents a Resolver of the variable names used in different
@@ -80,4 +81,45 @@ public interface Resolver {
      * @return the ProviderRegistry used by this resolver
      */
     ProviderRegistry getRegistry();
+
+    /**
+     * Invalidates everything resolved from the given variable, so it's
+     * resolved again the next time it's used. The listeners of the
+     * resolver are notified so they can invalidate whatever they resolved
+     * from it as well. Does nothing by default.
+     *
+     * @param variable name of the variable which changed.
+     */
+    default void invalidate(String variable) {
+    }
+
+    /**
+     * Adds a listener called with the name of every variable
+     * {@link #invalidate(String) invalidated}. Resolvers which never
+     * invalidate their variables ignore the listeners.
+     *
+     * @param listener to add.
+     */
+    default void addInvalidationListener(Consumer<String> listener) {
+    }
+
+    /**
+     * Gets the fingerprint of the given dependency key, either a variable
+     * or any other key the resolutions of this resolver report to the
+     * {@link mr.tommy.obbo.mapping.resolver.Dependencies}, like the
+     * {@link mr.tommy.obbo.mapping.resolver.Dependencies#memberKey(String, String)
+     * member keys}. While the fingerprints of the keys of a resolution
+     * stay the same the resolution gives the same member, so the
+     * {@link mr.tommy.obbo.reflection.Linker#saveSnapshot(java.nio.file.Path)
+     * linkage snapshots} can skip it.
+     *
+     * @param key of the dependency.
+     *
+     * @return the fingerprint of the key, null if the resolver can't tell,
+     * which is the default, so the resolutions depending on it are never
+     * skipped.
+     */
+    default String fingerprint(String key) {
+        return null;
+    }
 }
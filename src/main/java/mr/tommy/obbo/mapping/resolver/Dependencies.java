@@ -0,0 +1,134 @@
+package mr.tommy.obbo.mapping.resolver;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Records the variables a resolution depends on, so whatever was resolved
+ * from them can be invalidated once one of the variables changes.
+ *
+ * <p>
+ * Every {@link Template} reports its variables when it's evaluated, and
+ * the variables are added to the set of the recording running in the
+ * current thread, if any. Recordings can be nested, the variables of the
+ * inner recording are added to the outer one as well.
+ *
+ * <p>
+ * Besides variables, resolvers may report any other key their resolutions
+ * depend on, like the mapping entries of a member.
+ *
+ * <p>
+ * Resolutions using values which may change at any time, like the ones of
+ * providers which are not {@link RetentionType#CACHED cached}, are
+ * {@link #accessedUncached() marked}, so they are resolved again every time
+ * instead of being cached until a variable is invalidated.
+ */
+public final class Dependencies {
+    //Set of the recording running in every thread.
+    private static final ThreadLocal<Set<String>> recording = new ThreadLocal<>();
+    //Key marking the resolutions which must not be cached, it can't collide
+    // with a variable nor with a member key.
+    private static final String UNCACHED = "#";
+
+    private Dependencies() {
+    }
+
+    /**
+     * @param cls    name of the class.
+     * @param member name of the member in the wrapping interface.
+     *
+     * @return the key the resolutions using the mapping entries of the
+     * given member depend on. Variable names can't start with {@code #},
+     * so the keys never collide with a variable.
+     */
+    @NotNull
+    public static String memberKey(@NotNull String cls, @NotNull String member) {
+        return "#" + cls + "#" + member;
+    }
+
+    /**
+     * @param key of a dependency.
+     *
+     * @return whether the key is a {@link #memberKey(String, String) member
+     * key} instead of a variable.
+     */
+    public static boolean isMemberKey(@NotNull String key) {
+        return key.startsWith("#");
+    }
+
+    /**
+     * Runs the given action recording the variables it depends on.
+     *
+     * @param variables set where the variables are added to.
+     * @param action    to run.
+     * @param <T>       the result type of the action.
+     *
+     * @return the result of the action.
+     */
+    public static <T> T record(@NotNull Set<String> variables, @NotNull Supplier<T> action) {
+        Set<String> outer = recording.get();
+        recording.set(variables);
+        try {
+            return action.get();
+        } finally {
+            recording.set(outer);
+            if (outer != null) {
+                outer.addAll(variables);
+            }
+        }
+    }
+
+    /**
+     * Reports the given dependency to the recording running in the current
+     * thread, if any.
+     *
+     * @param key of the dependency used by the current resolution.
+     */
+    public static void accessed(@NotNull String key) {
+        Set<String> current = recording.get();
+        if (current != null) {
+            current.add(key);
+        }
+    }
+
+    /**
+     * Reports to the recording running in the current thread, if any, that
+     * the current resolution used a value which may change at any time, so
+     * it must not be cached.
+     */
+    public static void accessedUncached() {
+        accessed(UNCACHED);
+    }
+
+    /**
+     * Removes the mark of {@link #accessedUncached() uncached} resolutions
+     * from the given recorded keys.
+     *
+     * @param keys recorded for a resolution.
+     *
+     * @return whether the resolution must not be cached.
+     */
+    public static boolean removeUncached(@NotNull Set<String> keys) {
+        return keys.remove(UNCACHED);
+    }
+
+    /**
+     * Reports the given variables to the recording running in the current
+     * thread, if any.
+     *
+     * @param variables used by the current resolution.
+     */
+    public static void accessed(@NotNull Collection<String> variables) {
+        if (variables.isEmpty()) {
+            return;
+        }
+
+        Set<String> current = recording.get();
+        if (current != null) {
+            current.addAll(variables);
+        }
+    }
+}
@@ -3,6 +3,8 @@ package mr.tommy.obbo.mapping.resolver;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.time.Duration;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -33,6 +35,28 @@ public interface Provider {
      */
     RetentionType retentionType();
 
+    /**
+     * Gets how long the provided value is valid for when the retention
+     * type is {@link RetentionType#EXPIRING}.
+     *
+     * @return the time to live of the provided value.
+     */
+    default Duration ttl() {
+        return Duration.ZERO;
+    }
+
+    /**
+     * Gets the current version of the provided value when the retention
+     * type is {@link RetentionType#VERSIONED}. The value is only checked
+     * again when the version changes, so this method should be way
+     * cheaper than {@link #get()}.
+     *
+     * @return the version of the provided value.
+     */
+    default long version() {
+        return 0;
+    }
+
     /**
      * Basic Provider implementation used for easily create a Provider
      * for a resolver.
@@ -45,19 +69,30 @@ public interface Provider {
     class ProviderImpl implements Provider {
         private final Supplier<String> value;
         private final RetentionType type;
+        private final Duration ttl;
+        private final LongSupplier version;
+        private final RetainedValue retained = new RetainedValue();
 
         public ProviderImpl(Supplier<String> value, RetentionType type) {
-            this.value = value;
-            this.type = type;
+            this(value, type, Duration.ZERO, () -> 0);
         }
 
         public ProviderImpl(String value, RetentionType type) {
-            this.value = () -> value;
+            this(() -> value, type);
+        }
+
+        public ProviderImpl(Supplier<String> value, RetentionType type, Duration ttl, LongSupplier version) {
+            this.value = value;
             this.type = type;
+            this.ttl = ttl;
+            this.version = version;
         }
 
         @Override
         public String get() {
+            if (type == RetentionType.EXPIRING || type == RetentionType.VERSIONED) {
+                return retained.get(this, value);
+            }
             return value.get();
         }
 
@@ -65,6 +100,16 @@ public interface Provider {
         public RetentionType retentionType() {
             return type;
         }
+
+        @Override
+        public Duration ttl() {
+            return ttl;
+        }
+
+        @Override
+        public long version() {
+            return version.getAsLong();
+        }
     }
 
     /**
@@ -110,4 +155,36 @@ public interface Provider {
     static @NotNull Provider of(Supplier<String> supplier) {
         return new ProviderImpl(supplier, RetentionType.LAZY);
     }
+
+    /**
+     * Creates a provider with the given string supplier and
+     * {@link RetentionType#EXPIRING expiring} {@link RetentionType}.
+     *
+     * @param supplier which will return the string value the
+     *                 Provider will use on {@link #get()}.
+     * @param ttl how long the value of the supplier is valid for.
+     *
+     * @return the provider of the given supplier, which is only
+     * called again once the TTL expires.
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static @NotNull Provider expiring(Supplier<String> supplier, Duration ttl) {
+        return new ProviderImpl(supplier, RetentionType.EXPIRING, ttl, () -> 0);
+    }
+
+    /**
+     * Creates a provider with the given string supplier and
+     * {@link RetentionType#VERSIONED versioned} {@link RetentionType}.
+     *
+     * @param supplier which will return the string value the
+     *                 Provider will use on {@link #get()}.
+     * @param version supplier of the current version of the value.
+     *
+     * @return the provider of the given supplier, which is only
+     * called again once the version changes.
+     */
+    @Contract(value = "_, _ -> new", pure = true)
+    static @NotNull Provider versioned(Supplier<String> supplier, LongSupplier version) {
+        return new ProviderImpl(supplier, RetentionType.VERSIONED, Duration.ZERO, version);
+    }
 }
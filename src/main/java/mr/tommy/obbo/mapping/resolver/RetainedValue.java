@@ -0,0 +1,79 @@
+package mr.tommy.obbo.mapping.resolver;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Supplier;
+
+/**
+ * Holder of the value of a {@link Provider}, which decides when the value
+ * must be checked again based on the {@link RetentionType} of the provider.
+ *
+ * <p>
+ * The holder never blocks, two threads finding the value outdated at the
+ * same time may both check it again. The last value checked is kept.
+ */
+public final class RetainedValue {
+    private volatile Snapshot snapshot;
+
+    /**
+     * Gets the retained value of the given provider, loading it again if
+     * the provider is {@link RetentionType#LAZY lazy}, it was never loaded,
+     * its TTL expired or the version of the provider changed. Null values,
+     * returned when the value could not be loaded, are never retained, so
+     * a failure is not kept until the value is outdated.
+     *
+     * @param provider whose retention policy must be followed.
+     * @param loader   called to load the actual value.
+     *
+     * @return the retained value.
+     */
+    public String get(@NotNull Provider provider, @NotNull Supplier<String> loader) {
+        RetentionType type = provider.retentionType();
+        if (type == RetentionType.LAZY) {
+            return loader.get();
+        }
+
+        Snapshot s = snapshot;
+        long version = type == RetentionType.VERSIONED ? provider.version() : 0;
+        if (s != null && s.valid(type, version)) {
+            return s.value;
+        }
+
+        long expiresAt = type == RetentionType.EXPIRING ? System.nanoTime() + provider.ttl().toNanos() : 0;
+        String value = loader.get();
+        if (value != null) {
+            snapshot = new Snapshot(value, expiresAt, version);
+        }
+        return value;
+    }
+
+    /**
+     * Forgets the retained value, so it's loaded again on the next call.
+     */
+    public void clear() {
+        snapshot = null;
+    }
+
+    private static final class Snapshot {
+        private final String value;
+        private final long expiresAt;
+        private final long version;
+
+        private Snapshot(String value, long expiresAt, long version) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.version = version;
+        }
+
+        private boolean valid(RetentionType type, long version) {
+            switch (type) {
+                case EXPIRING:
+                    return System.nanoTime() - expiresAt < 0;
+                case VERSIONED:
+                    return this.version == version;
+                default:
+                    return true;
+            }
+        }
+    }
+}
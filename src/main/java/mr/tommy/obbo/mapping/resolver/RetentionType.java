@@ -15,5 +15,16 @@ public enum RetentionType {
      * value is going to be sent every time the Provider is going
      * to resolve.
      */
-    @SerializedName("cached") CACHED
+    @SerializedName("cached") CACHED,
+    /**
+     * Value is stored the first time is checked and sent until its
+     * {@link Provider#ttl() TTL} expires, then it's checked again.
+     */
+    @SerializedName("expiring") EXPIRING,
+    /**
+     * Value is stored the first time is checked and sent while the
+     * {@link Provider#version() version} of the provider doesn't change,
+     * then it's checked again.
+     */
+    @SerializedName("versioned") VERSIONED
 }
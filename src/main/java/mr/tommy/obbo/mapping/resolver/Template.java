@@ -0,0 +1,332 @@
+package mr.tommy.obbo.mapping.resolver;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * String with variables enclosed between two {@code @}, compiled once
+ * into a list of literal and variable segments so it can be evaluated
+ * without parsing it again.
+ *
+ * <p>
+ * The variables are resolved to their {@link Provider providers} when the
+ * template is compiled:
+ * <ul>
+ *     <li>{@link RetentionType#CACHED Cached} providers are called right
+ *     away and their value, which may have variables as well, is compiled
+ *     into the template, so a template of only cached variables always
+ *     evaluates to the same memoized string.</li>
+ *     <li>Providers with any other retention are called every time the
+ *     template is evaluated, {@link RetentionType#EXPIRING expiring} and
+ *     {@link RetentionType#VERSIONED versioned} ones decide on their own
+ *     when their value is checked again. Evaluating them marks the
+ *     resolution being recorded as {@link Dependencies#accessedUncached()
+ *     uncached}, so the bindings resolved from them don't cache their
+ *     members and ask the providers again on every call.</li>
+ *     <li>Variables without provider are looked up again on every
+ *     evaluation, since their provider may be registered later on, and
+ *     are replaced by their own name while there is none.</li>
+ * </ul>
+ * Every evaluation reports the variables of the template, the inlined
+ * ones included, to the {@link Dependencies} being recorded.
+ */
+public final class Template {
+    private static final char DELIMITER = '@';
+
+    private final String source;
+    //Segments of the template, null if the template is constant.
+    private final Segment[] segments;
+    //The value of the template if all its segments are literals.
+    private final String constant;
+    //Variables the template depends on, inlined ones included.
+    private final Set<String> variables;
+
+    private Template(String source, List<Segment> segments, Set<String> variables) {
+        this.source = source;
+        this.variables = Collections.unmodifiableSet(variables);
+        if (segments.stream().allMatch(s -> s instanceof Literal)) {
+            StringBuilder builder = new StringBuilder();
+            for (Segment segment : segments) {
+                builder.append(((Literal) segment).value);
+            }
+            this.segments = null;
+            this.constant = builder.toString();
+        } else {
+            this.segments = segments.toArray(new Segment[0]);
+            this.constant = null;
+        }
+    }
+
+    /**
+     * Compiles the given string into a template.
+     *
+     * @param source    string to compile.
+     * @param providers function giving the provider of a variable name,
+     *                  or null if the variable has none yet.
+     *
+     * @return the compiled template.
+     *
+     * @throws IllegalStateException if the values of the cached variables
+     *                               depend on themselves.
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull Template compile(@NotNull String source, @NotNull Function<String, Provider> providers) {
+        return compile(source, providers, name -> null);
+    }
+
+    /**
+     * Compiles the given string into a template, reusing the templates
+     * already compiled of the cached variables instead of calling their
+     * providers again.
+     *
+     * @param source    string to compile.
+     * @param providers function giving the provider of a variable name,
+     *                  or null if the variable has none yet.
+     * @param compiled  function giving the template compiled from
+     *                  {@code @name@} of a variable name, or null if it
+     *                  isn't compiled yet.
+     *
+     * @return the compiled template.
+     *
+     * @throws IllegalStateException if the values of the cached variables
+     *                               depend on themselves.
+     */
+    @Contract("_, _, _ -> new")
+    public static @NotNull Template compile(@NotNull String source, @NotNull Function<String, Provider> providers,
+                                            @NotNull Function<String, Template> compiled) {
+        Set<String> variables = new LinkedHashSet<>();
+        return new Template(source, segments(source, providers, compiled, new HashSet<>(), variables), variables);
+    }
+
+    /**
+     * @param source string to check.
+     *
+     * @return whether the given string may have variables.
+     */
+    public static boolean hasVariables(@NotNull String source) {
+        int start = source.indexOf(DELIMITER);
+        return start >= 0 && source.indexOf(DELIMITER, start + 1) > start + 1;
+    }
+
+    /**
+     * Splits the given string into segments, inlining the values of the
+     * cached variables.
+     *
+     * @param compiling names of the cached variables being compiled, used
+     *                  to detect cycles.
+     * @param variables where all the variables found are added to.
+     */
+    private static List<Segment> segments(String source, Function<String, Provider> providers,
+                                          Function<String, Template> compiled,
+                                          Set<String> compiling, Set<String> variables) {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < source.length()) {
+            int start = source.indexOf(DELIMITER, i);
+            int end = start < 0 ? -1 : variableEnd(source, start);
+            if (end < 0) {
+                literal.append(source, i, source.length());
+                break;
+            }
+
+            literal.append(source, i, start);
+            String name = source.substring(start + 1, end);
+            i = end + 1;
+            variables.add(name);
+
+            Provider provider = providers.apply(name);
+            if (provider != null && provider.retentionType() == RetentionType.CACHED) {
+                Template known = compiled.apply(name);
+                if (known != null) {
+                    variables.addAll(known.variables);
+                    if (known.constant != null) {
+                        literal.append(known.constant);
+                    } else {
+                        append(Arrays.asList(known.segments), literal, segments);
+                    }
+                    continue;
+                }
+
+                if (!compiling.add(name)) {
+                    throw new IllegalStateException("Cyclic variable " + name + " in " + source);
+                }
+                String value = provider.get();
+                if (value != null) {
+                    append(segments(value, providers, compiled, compiling, variables), literal, segments);
+                }
+                compiling.remove(name);
+                continue;
+            }
+
+            flush(literal, segments);
+            segments.add(new Variable(name, provider, providers));
+        }
+        flush(literal, segments);
+        return segments;
+    }
+
+    /**
+     * @return the index of the delimiter closing the variable starting at
+     * the given index, -1 if there is no variable there.
+     */
+    private static int variableEnd(String source, int start) {
+        int i = start + 1;
+        while (i < source.length() && isVariableChar(source.charAt(i))) {
+            i++;
+        }
+        return i > start + 1 && i < source.length() && source.charAt(i) == DELIMITER ? i : -1;
+    }
+
+    private static boolean isVariableChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Inlines the given segments, merging their literals with the literal
+     * being built.
+     */
+    private static void append(List<Segment> inlined, StringBuilder literal, List<Segment> segments) {
+        for (Segment segment : inlined) {
+            if (segment instanceof Literal) {
+                literal.append(((Literal) segment).value);
+            } else {
+                flush(literal, segments);
+                segments.add(segment);
+            }
+        }
+    }
+
+    private static void flush(StringBuilder literal, List<Segment> segments) {
+        if (literal.length() > 0) {
+            segments.add(new Literal(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    /**
+     * Evaluates this template.
+     *
+     * @return the value of the template with all its variables replaced.
+     */
+    @NotNull
+    public String evaluate() {
+        Dependencies.accessed(variables);
+        if (constant != null) {
+            return constant;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (Segment segment : segments) {
+            segment.append(builder);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return whether this template always evaluates to the same value.
+     */
+    public boolean isConstant() {
+        return constant != null;
+    }
+
+    /**
+     * @return the variables this template depends on, including the ones
+     * used by the values of its cached variables.
+     */
+    @NotNull
+    public Set<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return the string this template was compiled from.
+     */
+    @NotNull
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * Segment of a compiled template.
+     */
+    private interface Segment {
+        void append(StringBuilder builder);
+    }
+
+    private static final class Literal implements Segment {
+        private final String value;
+
+        private Literal(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public void append(StringBuilder builder) {
+            builder.append(value);
+        }
+    }
+
+    /**
+     * Variable whose value is not known at compile time, either because
+     * its provider is not cached or because it has no provider yet.
+     */
+    private static final class Variable implements Segment {
+        private final String name;
+        @Nullable
+        private final Provider provider;
+        private final Function<String, Provider> providers;
+        //Template compiled from the last value with variables of the
+        // provider, compiled again only once the value changes.
+        @Nullable
+        private volatile Template last;
+
+        private Variable(String name, @Nullable Provider provider, Function<String, Provider> providers) {
+            this.name = name;
+            this.provider = provider;
+            this.providers = providers;
+        }
+
+        @Override
+        public void append(StringBuilder builder) {
+            Provider p = provider != null ? provider : providers.apply(name);
+            if (p == null) {
+                builder.append(name);
+                return;
+            }
+
+            if (p.retentionType() != RetentionType.CACHED) {
+                Dependencies.accessedUncached();
+            }
+            String value = p.get();
+            if (value != null && hasVariables(value)) {
+                value = compiled(value).evaluate();
+            }
+            builder.append(value);
+        }
+
+        private Template compiled(String value) {
+            Template template = last;
+            if (template == null || !template.source.equals(value)) {
+                template = compile(value, providers);
+                last = template;
+            }
+            return template;
+        }
+    }
+}
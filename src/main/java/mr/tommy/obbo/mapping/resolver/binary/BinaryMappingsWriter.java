@@ -0,0 +1,237 @@
+package mr.tommy.obbo.mapping.resolver.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles mappings into the binary file read by the {@link BinaryResolver}.
+ *
+ * <p>
+ * The file has a string table, where every distinct string is stored
+ * once, the variables, two hashed indexes of the class aliases and of the
+ * classes, and a section with the members of every class:
+ * <pre>
+ *     int magic, int version
+ *     int strings, int[strings] offsets, (int length, byte[length] utf8)[strings]
+ *     int variables, (int name, int value)[variables]
+ *     int aliasSlots, (int hash, int name, int runtime name)[aliasSlots]
+ *     int classSlots, (int hash, int name, int section offset)[classSlots]
+ *     per class: int methods, int fields,
+ *                (int name, int descriptor, int original)[methods],
+ *                (int name, int original)[fields]
+ * </pre>
+ * Every int referring to a string is its index in the string table.
+ * Empty slots of the indexes have -1 as name. Class names are binary
+ * names, like {@link Class#getName()}, and the descriptors only keep the
+ * parameters, with slashes as package separator.
+ *
+ * @see mr.tommy.obbo.mapping.resolver.json.JsonResolver#compile(Path)
+ * @see mr.tommy.obbo.mapping.resolver.mappings.MappingsResolver#compile(Path)
+ */
+public class BinaryMappingsWriter {
+    static final int MAGIC = 0x4F42424F; // OBBO
+    static final int VERSION = 1;
+    //Descriptor of the method entries matching any overload.
+    static final String ANY = "";
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<Integer, Integer> variables = new LinkedHashMap<>();
+    private final Map<Integer, Integer> aliases = new LinkedHashMap<>();
+    private final Map<Integer, Section> classes = new LinkedHashMap<>();
+
+    /**
+     * Adds a variable, used to resolve the names given to the resolver.
+     *
+     * @param name  of the variable.
+     * @param value of the variable, without variables.
+     *
+     * @return this writer.
+     */
+    public BinaryMappingsWriter variable(@NotNull String name, @NotNull String value) {
+        variables.put(id(name), id(value));
+        return this;
+    }
+
+    /**
+     * Adds the runtime name of a class, when the names given to the resolver
+     * are not the runtime ones.
+     *
+     * @param name        of the class given to the resolver.
+     * @param runtimeName binary name of the class at runtime.
+     *
+     * @return this writer.
+     */
+    public BinaryMappingsWriter alias(@NotNull String name, @NotNull String runtimeName) {
+        aliases.putIfAbsent(id(name), id(runtimeName));
+        return this;
+    }
+
+    /**
+     * Adds the entry of a method.
+     *
+     * @param cls        binary name of the runtime class.
+     * @param name       of the method in the wrapping interface.
+     * @param descriptor of the parameters, null to match any overload.
+     * @param original   name of the method in the runtime class.
+     *
+     * @return this writer.
+     */
+    public BinaryMappingsWriter method(@NotNull String cls, @NotNull String name, @Nullable String descriptor,
+                                       @NotNull String original) {
+        section(cls).methods.add(new int[]{id(name), id(descriptor == null ? ANY : descriptor), id(original)});
+        return this;
+    }
+
+    /**
+     * Adds the entry of a field.
+     *
+     * @param cls      binary name of the runtime class.
+     * @param name     of the field in the wrapping interface.
+     * @param original name of the field in the runtime class.
+     *
+     * @return this writer.
+     */
+    public BinaryMappingsWriter field(@NotNull String cls, @NotNull String name, @NotNull String original) {
+        section(cls).fields.add(new int[]{id(name), id(original)});
+        return this;
+    }
+
+    /**
+     * Writes the mappings added so far to the given file.
+     *
+     * @param file to write, replaced if it exists.
+     *
+     * @throws IOException if the file can't be written.
+     */
+    public void write(@NotNull Path file) throws IOException {
+        byte[][] encoded = new byte[strings.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+
+        int[] aliasTable = table(aliases);
+        int[] classTable = table(classes);
+
+        //Offset of the first section.
+        int offset = 8 + 4 + 4 * encoded.length;
+        for (byte[] bytes : encoded) {
+            offset += 4 + bytes.length;
+        }
+        offset += 4 + 8 * variables.size() + 4 + 4 * aliasTable.length + 4 + 4 * classTable.length;
+        for (int slot = 0; slot < classTable.length; slot += 3) {
+            Section section = classTable[slot + 1] < 0 ? null : classes.get(classTable[slot + 1]);
+            if (section != null) {
+                classTable[slot + 2] = offset;
+                offset += 8 + 12 * section.methods.size() + 8 * section.fields.size();
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(encoded.length);
+            int stringOffset = 0;
+            for (byte[] bytes : encoded) {
+                out.writeInt(stringOffset);
+                stringOffset += 4 + bytes.length;
+            }
+            for (byte[] bytes : encoded) {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(variables.size());
+            for (Map.Entry<Integer, Integer> variable : variables.entrySet()) {
+                out.writeInt(variable.getKey());
+                out.writeInt(variable.getValue());
+            }
+
+            writeTable(out, aliasTable);
+            writeTable(out, classTable);
+
+            for (int slot = 0; slot < classTable.length; slot += 3) {
+                Section section = classTable[slot + 1] < 0 ? null : classes.get(classTable[slot + 1]);
+                if (section == null) continue;
+                out.writeInt(section.methods.size());
+                out.writeInt(section.fields.size());
+                for (int[] method : section.methods) {
+                    out.writeInt(method[0]);
+                    out.writeInt(method[1]);
+                    out.writeInt(method[2]);
+                }
+                for (int[] field : section.fields) {
+                    out.writeInt(field[0]);
+                    out.writeInt(field[1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the open addressed table of the given entries, as triples of
+     * the hash of the key, the key and the value, with a load factor of
+     * 0.5 at most. The values of the class table are filled later on.
+     */
+    private int[] table(Map<Integer, ?> entries) {
+        int capacity = Integer.highestOneBit(Math.max(1, entries.size()) * 2 - 1) << 1;
+        int[] table = new int[3 * capacity];
+        for (int slot = 0; slot < capacity; slot++) {
+            table[3 * slot + 1] = -1;
+        }
+
+        int mask = capacity - 1;
+        for (Map.Entry<Integer, ?> entry : entries.entrySet()) {
+            int hash = strings.get(entry.getKey()).hashCode();
+            int slot = BinaryResolver.mix(hash) & mask;
+            while (table[3 * slot + 1] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[3 * slot] = hash;
+            table[3 * slot + 1] = entry.getKey();
+            table[3 * slot + 2] = entry.getValue() instanceof Integer ? (Integer) entry.getValue() : -1;
+        }
+        return table;
+    }
+
+    private static void writeTable(DataOutputStream out, int[] table) throws IOException {
+        out.writeInt(table.length / 3);
+        for (int value : table) {
+            out.writeInt(value);
+        }
+    }
+
+    private Section section(String cls) {
+        return classes.computeIfAbsent(id(cls), id -> new Section());
+    }
+
+    private int id(String string) {
+        Integer id = ids.get(string);
+        if (id == null) {
+            id = strings.size();
+            strings.add(string);
+            ids.put(string, id);
+        }
+        return id;
+    }
+
+    private static final class Section {
+        //(name, descriptor, original) of every method.
+        private final List<int[]> methods = new ArrayList<>();
+        //(name, original) of every field.
+        private final List<int[]> fields = new ArrayList<>();
+    }
+}
@@ -0,0 +1,363 @@
+package mr.tommy.obbo.mapping.resolver.binary;
+
+import mr.tommy.obbo.entity.ProviderRegistry;
+import mr.tommy.obbo.mapping.Resolver;
+import mr.tommy.obbo.mapping.resolver.Dependencies;
+import mr.tommy.obbo.mapping.resolver.Provider;
+import mr.tommy.obbo.mapping.resolver.Template;
+import mr.tommy.obbo.reflection.CachedMethod;
+import mr.tommy.obbo.reflection.ClassData;
+import mr.tommy.obbo.reflection.MethodDescriptor;
+import mr.tommy.obbo.util.Utils;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Resolver of the binary mappings compiled by the {@link BinaryMappingsWriter},
+ * the binary sibling of the {@link mr.tommy.obbo.mapping.resolver.json.JsonResolver}.
+ *
+ * <p>
+ * The file is memory mapped instead of read, so opening it only reads its
+ * header, whatever its size, and every JVM of the host mapping the same
+ * file shares its pages. The strings and the member section of every
+ * class are decoded the first time they are used.
+ *
+ * <p>
+ * Names may have variables enclosed between two {@code @}, resolved by
+ * the {@link Provider providers} registered in the {@link #getRegistry()
+ * registry} or else by the variables compiled into the file.
+ *
+ * @see BinaryMappingsWriter
+ */
+public class BinaryResolver implements Resolver {
+    //Section of the classes without entries.
+    private static final Section EMPTY = new Section(Map.of(), Map.of());
+
+    //The mapped file, only read with absolute reads so it can be shared
+    // by every thread.
+    private final ByteBuffer buffer;
+    private final int stringOffsets;
+    private final int stringData;
+    //Strings decoded so far. Strings are immutable, so they can be
+    // published through the race.
+    private final String[] strings;
+    private final Map<String, String> variables = new HashMap<>();
+    private final int aliasTable, aliasSlots;
+    private final int classTable, classSlots;
+    //Sections decoded so far, by class name.
+    private final Map<String, Section> sections = new ConcurrentHashMap<>();
+    //The Provider Registry of the code-created Providers.
+    private final ProviderRegistry registry = new ProviderRegistry();
+    //Templates of the names used so far.
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+    //Listeners notified when a variable is invalidated.
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    //Checksum of the file, null until first requested.
+    private volatile String fingerprint;
+
+    private BinaryResolver(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < 12 || buffer.getInt(0) != BinaryMappingsWriter.MAGIC) {
+            throw new IOException("Not a binary mappings file");
+        }
+        if (buffer.getInt(4) != BinaryMappingsWriter.VERSION) {
+            throw new IOException("Unsupported binary mappings version " + buffer.getInt(4));
+        }
+
+        int count = buffer.getInt(8);
+        stringOffsets = 12;
+        stringData = stringOffsets + 4 * count;
+        strings = new String[count];
+        int position = stringData;
+        if (count > 0) {
+            int last = stringData + buffer.getInt(stringOffsets + 4 * (count - 1));
+            position = last + 4 + buffer.getInt(last);
+        }
+
+        int variableCount = buffer.getInt(position);
+        position += 4;
+        for (int i = 0; i < variableCount; i++, position += 8) {
+            variables.put(string(buffer.getInt(position)), string(buffer.getInt(position + 4)));
+        }
+
+        aliasSlots = buffer.getInt(position);
+        aliasTable = position + 4;
+        position = aliasTable + 12 * aliasSlots;
+        classSlots = buffer.getInt(position);
+        classTable = position + 4;
+    }
+
+    /**
+     * Opens the given binary mappings file.
+     *
+     * @param file compiled by the {@link BinaryMappingsWriter}.
+     *
+     * @return the resolver of the file.
+     *
+     * @throws IOException if the file can't be mapped or isn't a binary
+     *                     mappings file.
+     */
+    @Contract("_ -> new")
+    public static @NotNull BinaryResolver of(@NotNull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            //The mapping stays valid once the channel is closed.
+            return new BinaryResolver(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Truncated binary mappings file " + file, e);
+        }
+    }
+
+    @Override
+    public ClassData resolveClass(String className) {
+        return ClassData.of(parseClass(className));
+    }
+
+    @Override
+    public ClassData resolveClass(String className, ClassLoader loader) {
+        return ClassData.of(parseClass(className), loader);
+    }
+
+    /**
+     * Resolves the method using the entries of the section of the target
+     * class, looking for the entry of the overload with the parameters
+     * given first.
+     *
+     * @param targetClass       owning the method.
+     * @param wrappingInterface proxying the target class.
+     * @param methodName        of the method in the wrapping interface.
+     * @param params            of the method.
+     *
+     * @return the method of the target class, null if not found.
+     */
+    @Override
+    public CachedMethod resolveMethod(Class<?> targetClass, Class<?> wrappingInterface, String methodName, Class<?>... params) {
+        Section section = section(targetClass.getName());
+        Dependencies.accessed(Dependencies.memberKey(targetClass.getName(), methodName));
+        String descriptor = Utils.descriptor(params);
+        String original = section.method(methodName, descriptor);
+        if (original == null) {
+            String parsed = evaluate(methodName);
+            original = parsed.equals(methodName) ? null : section.method(parsed, descriptor);
+            if (original == null) original = parsed;
+        }
+        return ClassData.of(targetClass).method(MethodDescriptor.of(original, params));
+    }
+
+    @Override
+    public Field resolveField(Class<?> cls, String field) {
+        Section section = section(cls.getName());
+        Dependencies.accessed(Dependencies.memberKey(cls.getName(), field));
+        String original = section.fields.get(field);
+        if (original == null) {
+            String parsed = evaluate(field);
+            original = section.fields.getOrDefault(parsed, parsed);
+        }
+        return ClassData.of(cls).field(original);
+    }
+
+    /**
+     * Replaces the variables of the given class name and translates it to
+     * the runtime name of the class, if it has an alias.
+     *
+     * @param className to parse.
+     *
+     * @return the runtime binary name of the class.
+     */
+    @NotNull
+    public String parseClass(@NotNull String className) {
+        String parsed = evaluate(className);
+        int slot = find(aliasTable, aliasSlots, parsed);
+        return slot < 0 ? parsed : string(buffer.getInt(slot + 8));
+    }
+
+    /**
+     * @return the amount of class sections decoded so far.
+     */
+    public int getDecodedClasses() {
+        return (int) sections.values().stream().filter(s -> s != EMPTY).count();
+    }
+
+    @Override
+    public ProviderRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Registers a Provider directly into the {@link #getRegistry() registry}
+     * of this resolver, replacing the variable of the file with the same
+     * name, if any.
+     *
+     * @param name     where to link this provider with.
+     * @param provider to register.
+     */
+    public void registerProvider(String name, Provider provider) {
+        registry.registerProvider(name, provider);
+    }
+
+    /**
+     * Drops the names resolved from the given variable and notifies the
+     * listeners.
+     *
+     * @param variable name of the variable which changed.
+     */
+    @Override
+    public void invalidate(String variable) {
+        templates.values().removeIf(template -> template.getVariables().contains(variable));
+        for (Consumer<String> listener : listeners) {
+            listener.accept(variable);
+        }
+    }
+
+    @Override
+    public void addInvalidationListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Gets the fingerprint of the given dependency key: the value of a
+     * variable, or the checksum of the whole file for the
+     * {@link Dependencies#memberKey(String, String) member keys}.
+     *
+     * @param key of the dependency.
+     *
+     * @return the fingerprint of the key.
+     */
+    @Override
+    public String fingerprint(String key) {
+        if (!Dependencies.isMemberKey(key)) {
+            return evaluate("@" + key + "@");
+        }
+
+        String f = fingerprint;
+        if (f == null) {
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().clear());
+            fingerprint = f = Long.toHexString(crc.getValue()) + ":" + buffer.limit();
+        }
+        return f;
+    }
+
+    private String evaluate(String name) {
+        if (!Template.hasVariables(name)) {
+            return name;
+        }
+        return Utils.computeIfAbsent(templates, name, source -> Template.compile(source, this::provider)).evaluate();
+    }
+
+    @Nullable
+    private Provider provider(String name) {
+        Provider provider = registry.getRegisteredProvider(name);
+        if (provider != null) {
+            return provider;
+        }
+        String value = variables.get(name);
+        return value == null ? null : Provider.of(value);
+    }
+
+    /**
+     * Gets the section of the given class, decoding it the first time.
+     */
+    private Section section(String cls) {
+        Section section = sections.get(cls);
+        if (section == null) {
+            section = Utils.computeIfAbsent(sections, cls, this::decode);
+        }
+        return section;
+    }
+
+    private Section decode(String cls) {
+        int slot = find(classTable, classSlots, cls);
+        if (slot < 0) {
+            return EMPTY;
+        }
+
+        int position = buffer.getInt(slot + 8);
+        int methodCount = buffer.getInt(position), fieldCount = buffer.getInt(position + 4);
+        position += 8;
+        Map<String, String> methods = new HashMap<>(2 * methodCount);
+        for (int i = 0; i < methodCount; i++, position += 12) {
+            String name = string(buffer.getInt(position));
+            methods.putIfAbsent(name + string(buffer.getInt(position + 4)), string(buffer.getInt(position + 8)));
+        }
+        Map<String, String> fields = new HashMap<>(2 * fieldCount);
+        for (int i = 0; i < fieldCount; i++, position += 8) {
+            fields.putIfAbsent(string(buffer.getInt(position)), string(buffer.getInt(position + 4)));
+        }
+        return new Section(methods, fields);
+    }
+
+    /**
+     * Looks up the given key in one of the hashed indexes of the file.
+     *
+     * @return the position of the slot of the key, -1 if not found.
+     */
+    private int find(int table, int slots, String key) {
+        if (slots == 0) {
+            return -1;
+        }
+
+        int hash = key.hashCode();
+        int mask = slots - 1;
+        for (int i = mix(hash) & mask; ; i = (i + 1) & mask) {
+            int slot = table + 12 * i;
+            int id = buffer.getInt(slot + 4);
+            if (id < 0) {
+                return -1;
+            }
+            if (buffer.getInt(slot) == hash && string(id).equals(key)) {
+                return slot;
+            }
+        }
+    }
+
+    private String string(int id) {
+        String string = strings[id];
+        if (string == null) {
+            int position = stringData + buffer.getInt(stringOffsets + 4 * id);
+            byte[] bytes = new byte[buffer.getInt(position)];
+            buffer.duplicate().position(position + 4).get(bytes);
+            strings[id] = string = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return string;
+    }
+
+    static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Decoded entries of a class.
+     */
+    private static final class Section {
+        //Originals keyed by the name plus the descriptor of the methods.
+        private final Map<String, String> methods;
+        private final Map<String, String> fields;
+
+        private Section(Map<String, String> methods, Map<String, String> fields) {
+            this.methods = methods;
+            this.fields = fields;
+        }
+
+        private String method(String name, String descriptor) {
+            String original = methods.get(name + descriptor);
+            return original != null ? original : methods.get(name + BinaryMappingsWriter.ANY);
+        }
+    }
+}
@@ -1,17 +1,211 @@
 package mr.tommy.obbo.mapping.resolver.json;
 
-import java.util.HashMap;
-import java.util.Map;
+import mr.tommy.obbo.mapping.resolver.binary.BinaryMappingsWriter;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Mapping entries of a single class, with the methods and the fields
+ * kept apart.
+ *
+ * <p>
+ * Methods are keyed by their name and their parameter descriptor, so
+ * overloads can be mapped to different names. An entry without a
+ * descriptor maps all the overloads which don't have an entry of their
+ * own. The entries are precomputed at load time into open addressed
+ * tables of the indexes of the {@link Members members}, so every lookup
+ * is a single probe sequence and the tables only take an int per slot.
+ */
 class ClassInfo {
-    private final Map<String, MemberInfo> info = new HashMap<>();
-    public ClassInfo(MemberInfo[] members) {
-        for (MemberInfo member : members) {
-            info.put(member.getMethod(), member);
+    private static final String ANY = Members.ANY;
+
+    //Members of the class, with their descriptors normalized.
+    private final Members members;
+    //Tables of the index plus one of the members, 0 if empty.
+    private final int[] methods;
+    private final int[] fields;
+    //Names of the classes the entries were flattened from, only set
+    // when flattened.
+    private final Set<String> sources;
+
+    /**
+     * Creates the class info of the given members.
+     *
+     * @param members of the class.
+     * @param parser  used to parse the variables of the descriptors, null
+     *                if the descriptors have none.
+     */
+    ClassInfo(Members members, UnaryOperator<String> parser) {
+        this(parser == null ? members : members.parse(parser), Set.of());
+    }
+
+    private ClassInfo(Members members, Set<String> sources) {
+        this.members = members;
+        this.sources = sources;
+
+        int fieldCount = 0;
+        for (int i = 0; i < members.size(); i++) {
+            if (members.isField(i)) fieldCount++;
+        }
+        methods = new int[capacity(members.size() - fieldCount)];
+        fields = new int[capacity(fieldCount)];
+        //Later entries replace the former ones.
+        for (int i = 0; i < members.size(); i++) {
+            put(members.isField(i) ? fields : methods, i);
         }
     }
 
-    public MemberInfo member(String name) {
-        return info.get(name);
+    /**
+     * Flattens the entries of a class hierarchy into a single class info,
+     * where the entries of the classes closer to the start of the list
+     * shadow the ones further down it.
+     *
+     * @param hierarchy class infos of the hierarchy, closest class first.
+     * @param sources   names of all the classes of the hierarchy, with
+     *                  entries or not.
+     *
+     * @return the flattened class info.
+     */
+    static ClassInfo flatten(List<ClassInfo> hierarchy, Set<String> sources) {
+        List<String> entries = new ArrayList<>();
+        List<Boolean> isField = new ArrayList<>();
+        for (int h = hierarchy.size() - 1; h >= 0; h--) {
+            ClassInfo info = hierarchy.get(h);
+            info.forEachEntry(i -> {
+                Members m = info.members;
+                entries.add(m.name(i));
+                entries.add(m.descriptor(i));
+                entries.add(m.original(i));
+                isField.add(m.isField(i));
+            });
+        }
+
+        long[] fields = new long[(isField.size() + 63) >>> 6];
+        for (int i = 0; i < isField.size(); i++) {
+            if (isField.get(i)) fields[i >>> 6] |= 1L << i;
+        }
+        return new ClassInfo(new Members(entries.toArray(new String[0]), fields, false), sources);
+    }
+
+    /**
+     * @return the names of the classes this class info was flattened
+     * from, empty if it was not flattened.
+     */
+    Set<String> getSources() {
+        return sources;
+    }
+
+    /**
+     * Gets the original name of the given method.
+     *
+     * @param name       of the method in the wrapping interface.
+     * @param descriptor of the parameters of the method, as in
+     *                   {@link mr.tommy.obbo.util.Utils#descriptor(Class[])},
+     *                   null to look up only the entries without descriptor.
+     *
+     * @return the original name of the method, null if there is no entry.
+     */
+    public String method(String name, String descriptor) {
+        String original = descriptor == null ? null : get(methods, name, descriptor);
+        return original != null ? original : get(methods, name, ANY);
+    }
+
+    /**
+     * Gets the original name of the given field.
+     *
+     * @param name of the field in the wrapping interface.
+     *
+     * @return the original name of the field, null if there is no entry.
+     */
+    public String field(String name) {
+        return get(fields, name, ANY);
+    }
+
+    /**
+     * @param name of the member in the wrapping interface.
+     *
+     * @return the entries of the methods and fields with the given name,
+     * so two class infos with the same entries for a member give the same
+     * fingerprint.
+     */
+    String fingerprint(String name) {
+        StringBuilder builder = new StringBuilder();
+        forEachEntry(i -> {
+            if (members.name(i).equals(name)) {
+                builder.append(members.isField(i) ? "field " : "method ").append(members.descriptor(i))
+                    .append('=').append(members.original(i)).append(';');
+            }
+        });
+        return builder.toString();
+    }
+
+    /**
+     * Adds the entries of this class info to the given writer.
+     *
+     * @param cls    parsed name of the class.
+     * @param writer where to add the entries.
+     */
+    void export(String cls, BinaryMappingsWriter writer) {
+        forEachEntry(i -> {
+            String descriptor = members.descriptor(i);
+            if (members.isField(i)) {
+                writer.field(cls, members.name(i), members.original(i));
+            } else {
+                writer.method(cls, members.name(i), descriptor.equals(ANY) ? null : descriptor, members.original(i));
+            }
+        });
+    }
+
+    /**
+     * Calls the given action with the index of every member in the tables,
+     * so the replaced entries are skipped.
+     */
+    private void forEachEntry(IntConsumer action) {
+        for (int[] table : new int[][]{methods, fields}) {
+            for (int slot : table) {
+                if (slot != 0) action.accept(slot - 1);
+            }
+        }
+    }
+
+    /**
+     * @return the capacity of a table of the given size, keeping the load
+     * factor at 0.5 at most.
+     */
+    private static int capacity(int size) {
+        return Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1;
+    }
+
+    private static int hash(String name, String descriptor) {
+        int h = 31 * name.hashCode() + descriptor.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private void put(int[] table, int member) {
+        String name = members.name(member), descriptor = members.descriptor(member);
+        int mask = table.length - 1;
+        int i = hash(name, descriptor) & mask;
+        while (table[i] != 0 && !(members.name(table[i] - 1).equals(name)
+            && members.descriptor(table[i] - 1).equals(descriptor))) {
+            i = (i + 1) & mask;
+        }
+        table[i] = member + 1;
+    }
+
+    private String get(int[] table, String name, String descriptor) {
+        int mask = table.length - 1;
+        int i = hash(name, descriptor) & mask;
+        int slot;
+        while ((slot = table[i]) != 0) {
+            if (members.name(slot - 1).equals(name) && members.descriptor(slot - 1).equals(descriptor)) {
+                return members.original(slot - 1);
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
     }
 }
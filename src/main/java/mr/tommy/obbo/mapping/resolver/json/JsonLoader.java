@@ -0,0 +1,219 @@
+package mr.tommy.obbo.mapping.resolver.json;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import mr.tommy.obbo.mapping.resolver.Template;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams the JSON of a {@link JsonResolver} into a {@link ResolveInfo}
+ * in a single pass, without building the tree of the whole document.
+ *
+ * <p>
+ * Entries are read straight into the flat arrays of their
+ * {@link Members}, and the {@link ClassInfo class infos} of the classes
+ * whose name and descriptors have no variables are built right away,
+ * since they don't depend on any provider. Only the rest are built once
+ * the providers are available. Every string read is interned per load,
+ * so the names, descriptors and originals repeated across classes are
+ * kept once.
+ *
+ * <p>
+ * Gzipped input is detected by its magic number and decompressed on the
+ * fly, whatever the name of the file.
+ */
+final class JsonLoader {
+    //First two bytes of every gzip stream.
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    //Strings read so far, so the repeated ones are kept once.
+    private final Map<String, String> strings = new HashMap<>();
+
+    private JsonLoader() {
+    }
+
+    /**
+     * Opens the given file, decompressing it if it's gzipped.
+     *
+     * @param file to open.
+     *
+     * @return a reader of the JSON of the file.
+     *
+     * @throws IOException if the file can't be opened.
+     */
+    static Reader open(Path file) throws IOException {
+        return open(Files.newInputStream(file));
+    }
+
+    /**
+     * Wraps the given stream in a reader, decompressing it if it's gzipped.
+     *
+     * @param stream of the JSON.
+     *
+     * @return a reader of the JSON of the stream.
+     *
+     * @throws IOException if the gzip header can't be read.
+     */
+    static Reader open(InputStream stream) throws IOException {
+        InputStream in = new BufferedInputStream(stream, 1 << 16);
+        in.mark(2);
+        int magic = in.read() | in.read() << 8;
+        in.reset();
+        if (magic == GZIP_MAGIC) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Loads the JSON of the given reader.
+     *
+     * @param reader of the JSON.
+     *
+     * @return the info of the JSON.
+     *
+     * @throws JsonParseException if the JSON can't be read or is malformed.
+     */
+    static ResolveInfo load(Reader reader) {
+        try {
+            JsonReader in = new JsonReader(reader);
+            //As lenient as Gson.
+            in.setLenient(true);
+            return new JsonLoader().read(in);
+        } catch (MalformedJsonException | IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    private ResolveInfo read(JsonReader in) throws IOException {
+        Map<String, JsonElement> variables = new LinkedHashMap<>();
+        Map<String, Members> replacements = new LinkedHashMap<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+            } else if (name.equals("variables")) {
+                in.beginObject();
+                while (in.hasNext()) {
+                    String variable = in.nextName();
+                    put(variables, variable, JsonParser.parseReader(in));
+                }
+                in.endObject();
+            } else if (name.equals("replacements")) {
+                in.beginObject();
+                while (in.hasNext()) {
+                    String cls = in.nextName();
+                    put(replacements, cls, members(in, !Template.hasVariables(cls)));
+                }
+                in.endObject();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return new ResolveInfo(variables, replacements);
+    }
+
+    /**
+     * Reads the members of a class.
+     *
+     * @param constant whether the name of the class has no variables.
+     */
+    private Members members(JsonReader in, boolean constant) throws IOException {
+        List<String> entries = new ArrayList<>();
+        BitSet fields = new BitSet();
+        in.beginArray();
+        while (in.hasNext()) {
+            String type = Members.METHOD, method = null, descriptor = null, original = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "type":
+                        type = in.nextString();
+                        break;
+                    case "method":
+                    case "name":
+                    case "field":
+                        method = intern(in.nextString());
+                        break;
+                    case "descriptor":
+                        descriptor = in.nextString();
+                        break;
+                    case "original":
+                        original = intern(in.nextString());
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+
+            boolean field = type.equals(Members.FIELD);
+            if (field || descriptor == null) {
+                descriptor = Members.ANY;
+            } else if (Template.hasVariables(descriptor)) {
+                //Normalized once its variables are replaced.
+                descriptor = intern(descriptor);
+                constant = false;
+            } else {
+                descriptor = intern(Members.normalize(descriptor));
+            }
+            if (field) fields.set(entries.size() / 3);
+            entries.add(method);
+            entries.add(descriptor);
+            entries.add(original);
+        }
+        in.endArray();
+        return new Members(entries.toArray(new String[0]), toLongArray(fields, entries.size() / 3), constant);
+    }
+
+    /**
+     * @return the bits of the given set, in an array covering at least
+     * the given amount of bits.
+     */
+    private static long[] toLongArray(BitSet bits, int size) {
+        return Arrays.copyOf(bits.toLongArray(), (size + 63) >>> 6);
+    }
+
+    private String intern(String str) {
+        String interned = strings.putIfAbsent(str, str);
+        return interned == null ? str : interned;
+    }
+
+    private static <V> void put(Map<String, V> map, String key, V value) {
+        if (map.put(key, value) != null) {
+            throw new JsonSyntaxException("duplicate key: " + key);
+        }
+    }
+}
@@ -5,12 +5,21 @@ import com.google.gson.annotations.SerializedName;
 import mr.tommy.obbo.mapping.Resolver;
 import mr.tommy.obbo.mapping.resolver.Provider;
 import mr.tommy.obbo.mapping.resolver.ProviderFactory;
+import mr.tommy.obbo.mapping.resolver.RetainedValue;
 import mr.tommy.obbo.mapping.resolver.RetentionType;
+import mr.tommy.obbo.reflection.CachedMethod;
 import mr.tommy.obbo.reflection.ClassData;
 import mr.tommy.obbo.reflection.MethodDescriptor;
+import mr.tommy.obbo.util.SingleFlight;
 import mr.tommy.obbo.util.Utils;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.stream.Stream;
 
 public class JsonProviderFactory extends ProviderFactory<JsonElement> {
@@ -47,57 +56,209 @@ public class JsonProviderFactory extends ProviderFactory<JsonElement> {
         @SerializedName("static") STATIC_METHOD
     }
 
-    private class DelegatedProvider implements Provider {
+    /**
+     * Provider delegating to a provider class, a static method or a
+     * registered provider, as described by its JSON object.
+     *
+     * <p>
+     * The delegate is resolved once, the first time the provider is used,
+     * so later evaluations only call the provider instance or the method
+     * handle of the static method. A delegate that can't be resolved is
+     * logged once and not resolved again until the
+     * {@link ClassData#getMissTtl(TimeUnit) miss TTL} runs out, providing
+     * no value meanwhile. Concurrent evaluations of an outdated value share
+     * a single call to the delegate.
+     */
+    private static class DelegatedProvider implements Provider {
+        //Evaluations of the values being checked right now.
+        private static final SingleFlight<DelegatedProvider, String> evaluations = new SingleFlight<>();
+
         private String provider;
         private RetentionType retention = RetentionType.CACHED;
         private String value;
         private DelegateType type = DelegateType.PROVIDER;
-        private String[] params;
-        private String _value;
-        private Class<?>[] _params;
+        private String[] params = new String[0];
+        //TTL in milliseconds of the expiring retention.
+        private long ttl;
+        //Static method of the provider class returning the version of
+        // the versioned retention, the delegate's version if none.
+        private String version;
+        private transient Resolver resolver;
+        private final transient RetainedValue retained = new RetainedValue();
+        //The resolved delegate, null until the provider is first used.
+        private transient volatile Delegate delegate;
 
         private String get0() {
-            ClassData data = ClassData.of(resolver.resolveClass(provider));
+            try {
+                return delegate().get();
+            } catch (Throwable e) {
+                Utils.logger().log(Level.WARNING, "Couldn't evaluate the provider " + provider, e);
+                return null;
+            }
+        }
+
+        /**
+         * Resolves the delegate of this provider, only once unless it
+         * failed and its failure expired.
+         */
+        private Delegate delegate() {
+            Delegate d = delegate;
+            if (d == null || d.expired()) {
+                synchronized (this) {
+                    d = delegate;
+                    if (d == null || d.expired()) {
+                        try {
+                            d = resolve();
+                        } catch (ReflectiveOperationException | RuntimeException e) {
+                            Utils.logger().log(Level.WARNING, "Couldn't resolve the provider " + provider, e);
+                            d = new FailedDelegate();
+                        }
+                        delegate = d;
+                    }
+                }
+            }
+            return d;
+        }
+
+        private Delegate resolve() throws ReflectiveOperationException {
             if (type == DelegateType.REGISTERED) {
-                Provider provider = resolver.getRegistry().getRegisteredProvider(value);
-                if (provider == null)
-                    return null;
-
-                return provider.get();
-            } else if (type == DelegateType.PROVIDER) {
-                try {
-                    Provider instance = (Provider) data.constructor().newInstance();
+                //Registered providers may be replaced, so look them up every time.
+                return new Delegate() {
+                    @Override
+                    public String get() {
+                        Provider p = resolver.getRegistry().getRegisteredProvider(value);
+                        return p == null ? null : p.get();
+                    }
+
+                    @Override
+                    public long version() {
+                        Provider p = resolver.getRegistry().getRegisteredProvider(value);
+                        return p == null ? 0 : p.version();
+                    }
+                };
+            }
+
+            ClassData data = resolver.resolveClass(provider);
+            if (data == null) {
+                throw new ClassNotFoundException(provider);
+            }
+
+            MethodHandle versionHandle = version == null ? null
+                : staticHandle(data, version, MethodType.methodType(long.class));
+            if (type == DelegateType.STATIC_METHOD) {
+                MethodHandle handle = staticHandle(data, value, MethodType.methodType(String.class));
+                return new Delegate() {
+                    @Override
+                    public String get() throws Throwable {
+                        return (String) handle.invokeExact();
+                    }
+
+                    @Override
+                    public long version() throws Throwable {
+                        return versionHandle == null ? 0 : (long) versionHandle.invokeExact();
+                    }
+                };
+            }
+
+            Constructor<?> constructor = data.constructor();
+            if (constructor == null) {
+                throw new NoSuchMethodException(provider + ".<init>()");
+            }
+            Provider instance = (Provider) constructor.newInstance();
+            return new Delegate() {
+                @Override
+                public String get() {
                     return instance.get();
-                } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-                    e.printStackTrace();
                 }
-            } else if (type == DelegateType.STATIC_METHOD) {
-                try {
-                    return (String) data.method(MethodDescriptor.of(value, params()))
-                        .getMethod().invoke(null);
-                } catch (IllegalAccessException | InvocationTargetException e) {
-                    e.printStackTrace();
+
+                @Override
+                public long version() throws Throwable {
+                    return versionHandle == null ? instance.version() : (long) versionHandle.invokeExact();
                 }
-            }
-            return null;
+            };
         }
 
-        private Class<?>[] params() {
-            return _params != null ? _params : (_params = Stream.of(params)
-                    .map(p -> ClassData.of(p).getCls())
-                    .toArray(Class[]::new));
+        private MethodHandle staticHandle(ClassData data, String name, MethodType type)
+            throws ReflectiveOperationException {
+            Class<?>[] params = Stream.of(this.params)
+                .map(p -> resolver.resolveClass(p).getCls())
+                .toArray(Class<?>[]::new);
+            CachedMethod method = data.method(MethodDescriptor.of(name, name.equals(value) ? params : new Class<?>[0]));
+            if (method == null) {
+                throw new NoSuchMethodException(provider + "." + name);
+            }
+            return MethodHandles.lookup().unreflect(method.getMethod()).asType(type);
         }
 
         @Override
         public String get() {
-            return retention != RetentionType.CACHED || _value == null
-                    ? (_value = get0()) : _value;
+            return retained.get(this, () -> evaluations.run(this, this::get0));
         }
 
         @Override
         public RetentionType retentionType() {
             return retention;
         }
+
+        @Override
+        public Duration ttl() {
+            return Duration.ofMillis(ttl);
+        }
+
+        @Override
+        public long version() {
+            try {
+                return delegate().version();
+            } catch (Throwable e) {
+                Utils.logger().log(Level.WARNING, "Couldn't get the version of the provider " + provider, e);
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * The resolved delegate of a {@link DelegatedProvider}.
+     */
+    private interface Delegate {
+        String get() throws Throwable;
+
+        long version() throws Throwable;
+
+        /**
+         * @return whether the delegate must be resolved again.
+         */
+        default boolean expired() {
+            return false;
+        }
+    }
+
+    /**
+     * Delegate of a provider which couldn't be resolved, providing no value
+     * until the miss TTL of the class data runs out.
+     */
+    private static final class FailedDelegate implements Delegate {
+        //When the delegate is resolved again, 0 if never.
+        private final long retryAt;
+
+        private FailedDelegate() {
+            long ttl = ClassData.getMissTtl(TimeUnit.NANOSECONDS);
+            this.retryAt = ttl == 0 ? 0 : System.nanoTime() + ttl;
+        }
+
+        @Override
+        public String get() {
+            return null;
+        }
+
+        @Override
+        public long version() {
+            return 0;
+        }
+
+        @Override
+        public boolean expired() {
+            return retryAt != 0 && System.nanoTime() - retryAt >= 0;
+        }
     }
 
     @Override
@@ -105,6 +266,8 @@ public class JsonProviderFactory extends ProviderFactory<JsonElement> {
         if (element.isJsonPrimitive())
             return new ConstantProvider(element.getAsString());
 
-        return Utils.gson().fromJson(element, DelegatedProvider.class);
+        DelegatedProvider provider = Utils.gson().fromJson(element, DelegatedProvider.class);
+        provider.resolver = resolver;
+        return provider;
     }
 }
@@ -1,8 +1,12 @@
 package mr.tommy.obbo.mapping.resolver.json;
 
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
 import mr.tommy.obbo.entity.ProviderRegistry;
 import mr.tommy.obbo.mapping.Resolver;
 import mr.tommy.obbo.mapping.resolver.Provider;
+import mr.tommy.obbo.mapping.resolver.binary.BinaryMappingsWriter;
+import mr.tommy.obbo.mapping.resolver.binary.BinaryResolver;
 import mr.tommy.obbo.reflection.CachedMethod;
 import mr.tommy.obbo.reflection.ClassData;
 import mr.tommy.obbo.reflection.MethodDescriptor;
@@ -10,9 +14,20 @@ import mr.tommy.obbo.util.Utils;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
 /**
  * Main resolver of this project. Is meant to load all the Resolver info
@@ -34,6 +49,16 @@ import java.lang.reflect.Method;
  *                  {
  *                      "method": "interfaceMethod", // Interface method name
  *                      "original": "actualMethod" // Actual method name
+ *                  },
+ *                  {
+ *                      "method": "overloaded",
+ *                      "descriptor": "(I)V", // Only maps this overload, variables allowed
+ *                      "original": "actualOverload"
+ *                  },
+ *                  {
+ *                      "type": "field", // Entries are methods by default
+ *                      "name": "interfaceField",
+ *                      "original": "actualField"
  *                  }
  *              ]
  *         }
@@ -45,19 +70,26 @@ import java.lang.reflect.Method;
  * @see Provider
  */
 public class JsonResolver implements Resolver {
-    //The resolver info gotten from loading the Json information
-    // inside a ResolveInfo class using Gson.
-    private final ResolveInfo info;
+    //The resolver info streamed from the Json information by the
+    // JsonLoader. Replaced as a whole when the JSON is reloaded.
+    private volatile ResolveInfo info;
     //The Provider Factory of this Resolver using both
     // ConstantProviders and DelegatedProviders to provide
     // information when variable values are forced to resolve.
     private final JsonProviderFactory factory = new JsonProviderFactory(this);
     //The Provider Registry of the code-created Providers.
     private final ProviderRegistry registry = new ProviderRegistry();
+    //Listeners notified when a variable is invalidated.
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    //Pool preloading the mappings, null if they are loaded on first use.
+    private volatile ForkJoinPool preloadPool;
+    //Held for the whole reload, so concurrent reloads diff against the
+    // mappings the former one swapped in.
+    private final ReentrantLock reloadLock = new ReentrantLock();
 
     /**
-     * Creates a JSON resolver from a {@link ResolveInfo} loaded from
-     * a {@link com.google.gson.Gson}.
+     * Creates a JSON resolver from a {@link ResolveInfo} loaded by
+     * the {@link JsonLoader}.
      *
      * @param info contained in the JSON.
      */
@@ -115,7 +147,8 @@ public class JsonResolver implements Resolver {
 
     /**
      * Resolves the method using the {@link #info given data} and the
-     * {@link ResolveInfo#parseMethod(String, String)}.
+     * {@link ResolveInfo#parseMethod(String, Class, String)}, so every
+     * overload can be mapped on its own.
      *
      * <p>
      * This method is cached by using the {@link ClassData} where Methods are
@@ -137,21 +170,23 @@ public class JsonResolver implements Resolver {
     @Override
     public CachedMethod resolveMethod(Class<?> targetClass, Class<?> wrappingInterface, String methodName, Class<?>... params) {
         ClassData data = ClassData.of(targetClass);
-        return data.method(MethodDescriptor.of(info.parseMethod(methodName, data.getName()), params));
+        String original = info.parseMethod(methodName, targetClass, Utils.descriptor(params));
+        return data.method(MethodDescriptor.of(original, params));
     }
 
     /**
-     * Resolves the field of the given class using the
+     * Resolves the field of the given class using the field entries of
+     * the class.
      *
      * @param cls from where the field is going to be retrieved.
      * @param field from where to get the field from the class when
-     *              parsed using the {@link ResolveInfo#parseField(String)}.
+     *              parsed using the {@link ResolveInfo#parseField(String, Class)}.
      *
      * @return the Field of the parsed field name of the given class.
      */
     @Override
     public Field resolveField(Class<?> cls, String field) {
-        return ClassData.of(cls).field(info.parseField(field));
+        return ClassData.of(cls).field(info.parseField(field, cls));
     }
 
     /**
@@ -162,6 +197,43 @@ public class JsonResolver implements Resolver {
         return registry;
     }
 
+    /**
+     * Invalidates the given variable, dropping its provider and the
+     * templates and class infos depending on it, then notifies the
+     * listeners, so only what was resolved from the variable is resolved
+     * again. Call it after {@link #registerProvider(String, Provider)
+     * registering} a new provider for a variable already used.
+     *
+     * @param variable name of the variable which changed.
+     */
+    @Override
+    public void invalidate(String variable) {
+        info.invalidate(variable);
+        for (Consumer<String> listener : listeners) {
+            listener.accept(variable);
+        }
+    }
+
+    @Override
+    public void addInvalidationListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Gets the fingerprint of the given dependency key: the value of a
+     * variable, or the entries of the member of a
+     * {@link mr.tommy.obbo.mapping.resolver.Dependencies#memberKey(String, String)
+     * member key} in the current mappings.
+     *
+     * @param key of the dependency.
+     *
+     * @return the fingerprint of the key.
+     */
+    @Override
+    public String fingerprint(String key) {
+        return info.fingerprint(key);
+    }
+
     /**
      * Registers a Provider directly into this JSON resolver. Basically
      * shortens the call to the {@link #getRegistry() registry} and
@@ -198,7 +270,198 @@ public class JsonResolver implements Resolver {
      */
     @Contract("_ -> new")
     public static @NotNull JsonResolver of(Reader reader) {
-        return new JsonResolver(Utils.gson().fromJson(reader, ResolveInfo.class));
+        return new JsonResolver(JsonLoader.load(reader));
+    }
+
+    /**
+     * Creates a new Json resolver from the given stream of JSON, which may
+     * be gzipped.
+     *
+     * @param stream of the JSON, closed once read.
+     *
+     * @return the resolver of the JSON of the stream.
+     *
+     * @throws IOException if the stream can't be read.
+     */
+    @Contract("_ -> new")
+    public static @NotNull JsonResolver of(InputStream stream) throws IOException {
+        try (Reader reader = JsonLoader.open(stream)) {
+            return of(reader);
+        } catch (JsonIOException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a new Json resolver from the given JSON files, merging them
+     * in order so the variables and entries of the later files replace the
+     * ones of the former. Gzipped files, like {@code .json.gz} ones, are
+     * decompressed while they are read.
+     *
+     * @param files of the JSON used to parse the resolver.
+     *
+     * @return the resolver of the given files.
+     *
+     * @throws IOException if any of the files can't be read.
+     */
+    @Contract("_ -> new")
+    public static @NotNull JsonResolver of(Path... files) throws IOException {
+        return new JsonResolver(read(files));
+    }
+
+    private static ResolveInfo read(Path... files) throws IOException {
+        List<ResolveInfo> infos = new ArrayList<>();
+        for (Path file : files) {
+            try (Reader reader = JsonLoader.open(file)) {
+                infos.add(JsonLoader.load(reader));
+            } catch (JsonParseException e) {
+                throw new IOException("Malformed mappings file " + file, e);
+            }
+        }
+        return ResolveInfo.merge(infos);
+    }
+
+    /**
+     * Sets whether the mapping entries of the superclasses and interfaces
+     * of a class are used to resolve its members.
+     *
+     * @param flatten whether to flatten the inheritance.
+     *
+     * @see ResolveInfo#setFlattenInheritance(boolean)
+     */
+    public void setFlattenInheritance(boolean flatten) {
+        info.setFlattenInheritance(flatten);
+    }
+
+    /**
+     * {@link #preload(ForkJoinPool) Preloads} the mappings of this resolver
+     * in the {@link ForkJoinPool#commonPool() common pool}.
+     */
+    public void preload() {
+        preload(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Evaluates the variables and builds the mapping entries of every
+     * class now, in parallel in the given pool, instead of in the thread
+     * of their first resolution. The variables are evaluated in the order
+     * of their dependencies, the independent ones concurrently. The
+     * mappings {@link #reload(Path...) reloaded} afterwards are preloaded
+     * in the same pool before they are swapped in.
+     *
+     * @param pool where to preload the mappings.
+     */
+    public void preload(@NotNull ForkJoinPool pool) {
+        preloadPool = pool;
+        info.preload(pool);
+    }
+
+    /**
+     * Reloads the mappings of this resolver from the given JSON.
+     *
+     * @param reader of the new JSON.
+     *
+     * @see #reload(ResolveInfo)
+     */
+    public void reload(Reader reader) {
+        reload(JsonLoader.load(reader));
+    }
+
+    /**
+     * Reloads the mappings of this resolver from the given JSON files,
+     * merged in order.
+     *
+     * @param files of the new JSON.
+     *
+     * @throws IOException if any of the files can't be read.
+     * @see #reload(ResolveInfo)
+     */
+    public void reload(Path... files) throws IOException {
+        reload(read(files));
+    }
+
+    /**
+     * Replaces the mappings of this resolver with the given ones.
+     *
+     * <p>
+     * The class infos of the new mappings are built before they are swapped
+     * in, so resolutions running at the same time keep using the previous
+     * mappings until the swap and never see them half built. Then only the
+     * variables and classes whose mappings changed are
+     * {@link #invalidate(String) invalidated}, so the bindings resolved
+     * from the rest stay linked. The registered providers are kept.
+     *
+     * <p>
+     * Reloads are serialized, and the changes are computed before the new
+     * mappings are swapped in, so if they can't be computed the current
+     * mappings are kept.
+     *
+     * @param next mappings replacing the current ones.
+     */
+    private void reload(ResolveInfo next) {
+        reloadLock.lock();
+        try {
+            ResolveInfo previous = info;
+            next.setFactory(factory);
+            next.setFlattenInheritance(previous.isFlattenInheritance());
+            try {
+                ForkJoinPool pool = preloadPool;
+                if (pool != null) {
+                    next.preload(pool);
+                } else {
+                    next.getClassInfo();
+                }
+            } catch (RuntimeException e) {
+                //Some provider couldn't be evaluated yet, build them lazily.
+                Utils.logger().log(Level.FINE, "Couldn't build the class infos of the reloaded mappings", e);
+            }
+
+            Set<String> changed = previous.diff(next);
+            info = next;
+            for (String key : changed) {
+                for (Consumer<String> listener : listeners) {
+                    listener.accept(key);
+                }
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Watches the given JSON files and {@link #reload(Path...) reloads}
+     * them every time any of them changes. The files are parsed in the
+     * thread of the watcher, so the resolver is never blocked by the
+     * reload.
+     *
+     * @param files to watch, merged in order.
+     *
+     * @return the watcher of the files, which must be closed to stop
+     * watching them.
+     *
+     * @throws IOException if the files can't be watched.
+     */
+    public MappingWatcher watch(Path... files) throws IOException {
+        return new MappingWatcher(this, List.of(files));
+    }
+
+    /**
+     * Compiles the current mappings of this resolver into a binary file,
+     * which can be opened by the {@link BinaryResolver} without parsing
+     * the JSON again. The variables are evaluated now, so the values of
+     * the providers which change over time are frozen into the file.
+     *
+     * @param file to write.
+     *
+     * @throws IOException if the file can't be written.
+     */
+    public void compile(Path file) throws IOException {
+        BinaryMappingsWriter writer = new BinaryMappingsWriter();
+        info.export(writer);
+        writer.write(file);
     }
 
     /**
@@ -0,0 +1,130 @@
+package mr.tommy.obbo.mapping.resolver.json;
+
+import mr.tommy.obbo.util.Utils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Watches the JSON files of a {@link JsonResolver} and reloads them every
+ * time any of them changes, in its own daemon thread.
+ *
+ * <p>
+ * Editors usually write a file in several steps, so the changes are
+ * coalesced until the files are quiet for {@link #QUIET_MILLIS} before
+ * reloading them. If the files can't be parsed the current mappings are
+ * kept and the error logged, so a half written file never breaks the
+ * resolver.
+ *
+ * @see JsonResolver#watch(Path...)
+ */
+public class MappingWatcher implements Closeable {
+    //Time without changes to wait before reloading the files.
+    private static final long QUIET_MILLIS = 100;
+
+    private final JsonResolver resolver;
+    private final Path[] files;
+    private final Set<Path> watched = new HashSet<>();
+    private final WatchService service;
+    private final Thread thread;
+
+    /**
+     * Starts watching the given files of the resolver.
+     *
+     * @param resolver to reload.
+     * @param files    of the resolver, merged in order.
+     *
+     * @throws IOException if the directories of the files can't be watched.
+     */
+    MappingWatcher(@NotNull JsonResolver resolver, @NotNull List<Path> files) throws IOException {
+        this.resolver = resolver;
+        this.files = files.stream().map(p -> p.toAbsolutePath().normalize()).toArray(Path[]::new);
+        this.service = FileSystems.getDefault().newWatchService();
+
+        Set<Path> directories = new HashSet<>();
+        for (Path file : this.files) {
+            watched.add(file);
+            directories.add(file.getParent());
+        }
+        try {
+            for (Path directory : directories) {
+                directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        } catch (IOException e) {
+            service.close();
+            throw e;
+        }
+
+        this.thread = new Thread(this::run, "Obbo mapping watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                if (!changed(service.take())) {
+                    continue;
+                }
+
+                //Wait until the files are quiet.
+                WatchKey key;
+                while ((key = service.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed(key);
+                }
+
+                try {
+                    resolver.reload(files);
+                } catch (IOException | RuntimeException e) {
+                    Utils.logger().log(Level.WARNING, "Couldn't reload the mappings, keeping the current ones", e);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            //Closed.
+        }
+    }
+
+    /**
+     * Consumes the events of the given key.
+     *
+     * @return whether any of the watched files changed.
+     */
+    private boolean changed(WatchKey key) {
+        boolean changed = false;
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                || context instanceof Path && watched.contains(directory.resolve((Path) context))) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Stops watching the files.
+     *
+     * @throws IOException if the watch service can't be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        service.close();
+        thread.interrupt();
+    }
+}
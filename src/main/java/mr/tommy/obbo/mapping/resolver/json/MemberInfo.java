@@ -1,19 +0,0 @@
-package mr.tommy.obbo.mapping.resolver.json;
-
-class MemberInfo {
-    private String type = "method";
-    private String method;
-    private String original;
-
-    public String getType() {
-        return type;
-    }
-
-    public String getMethod() {
-        return method;
-    }
-
-    public String getOriginal() {
-        return original;
-    }
-}
@@ -0,0 +1,138 @@
+package mr.tommy.obbo.mapping.resolver.json;
+
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * Mapping entries of a class as read from the JSON, stored in flat
+ * arrays indexed by the position of the member instead of an object per
+ * member.
+ *
+ * <p>
+ * Every member takes three slots of {@link #entries}: its name in the
+ * wrapping interface, its descriptor and its original name. Fields and
+ * the methods without descriptor have {@link #ANY} as descriptor. The
+ * descriptors without variables are already normalized when loaded.
+ */
+final class Members {
+    //Descriptor of the entries without one.
+    static final String ANY = "";
+    static final String METHOD = "method";
+    static final String FIELD = "field";
+
+    //Name, descriptor and original of every member, in order.
+    private final String[] entries;
+    //Bits of the members which are fields.
+    private final long[] fields;
+    //Class info of the members if it doesn't depend on any variable.
+    private final ClassInfo constant;
+
+    /**
+     * @param entries  name, descriptor and original of every member.
+     * @param fields   bits of the members which are fields.
+     * @param constant whether the class info can be built right away.
+     */
+    Members(String[] entries, long[] fields, boolean constant) {
+        this.entries = entries;
+        this.fields = fields;
+        this.constant = constant ? new ClassInfo(this, null) : null;
+    }
+
+    int size() {
+        return entries.length / 3;
+    }
+
+    boolean isField(int i) {
+        return (fields[i >>> 6] & 1L << i) != 0;
+    }
+
+    String name(int i) {
+        return entries[3 * i];
+    }
+
+    String descriptor(int i) {
+        return entries[3 * i + 1];
+    }
+
+    String original(int i) {
+        return entries[3 * i + 2];
+    }
+
+    /**
+     * @return the class info of these members, built while loading, or
+     * null if it depends on variables.
+     */
+    ClassInfo getConstant() {
+        return constant;
+    }
+
+    /**
+     * @param parser used to replace the variables of the descriptors.
+     *
+     * @return a copy of these members with the variables of their
+     * descriptors replaced and the descriptors normalized.
+     */
+    Members parse(UnaryOperator<String> parser) {
+        String[] parsed = entries.clone();
+        for (int i = 0; i < size(); i++) {
+            String descriptor = descriptor(i);
+            if (!isField(i) && !descriptor.equals(ANY)) {
+                parsed[3 * i + 1] = normalize(parser.apply(descriptor));
+            }
+        }
+        return new Members(parsed, fields, false);
+    }
+
+    /**
+     * Normalizes the given method descriptor keeping only the parameters
+     * and using slashes as package separator, since the variables may
+     * resolve to dotted names.
+     */
+    static String normalize(String descriptor) {
+        int end = descriptor.indexOf(')');
+        return (end < 0 ? descriptor : descriptor.substring(0, end + 1)).replace('.', '/');
+    }
+
+    /**
+     * @return whether the members with the given name are the same in
+     * both instances, in the same order.
+     */
+    boolean sameEntries(Members other, String name) {
+        int i = 0, j = 0;
+        while (true) {
+            i = next(name, i);
+            j = other.next(name, j);
+            if (i < 0 || j < 0) {
+                return i == j;
+            }
+            if (isField(i) != other.isField(j) || !descriptor(i).equals(other.descriptor(j))
+                || !original(i).equals(other.original(j))) {
+                return false;
+            }
+            i++;
+            j++;
+        }
+    }
+
+    private int next(String name, int from) {
+        for (int i = from; i < size(); i++) {
+            if (name(i).equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Members that = (Members) o;
+        return Arrays.equals(entries, that.entries) && Arrays.equals(fields, that.fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(entries) + Arrays.hashCode(fields);
+    }
+}
@@ -1,67 +1,417 @@
 package mr.tommy.obbo.mapping.resolver.json;
 
 import com.google.gson.JsonElement;
+import mr.tommy.obbo.mapping.resolver.Dependencies;
 import mr.tommy.obbo.mapping.resolver.Provider;
 import mr.tommy.obbo.mapping.resolver.ProviderFactory;
+import mr.tommy.obbo.mapping.resolver.Template;
+import mr.tommy.obbo.mapping.resolver.binary.BinaryMappingsWriter;
+import mr.tommy.obbo.util.PackageTrie;
+import mr.tommy.obbo.util.SingleFlight;
 import mr.tommy.obbo.util.Utils;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.logging.Level;
 
 @SuppressWarnings({"MismatchedQueryAndUpdateOfCollection", "unused"}) // Gson
 public class ResolveInfo {
-    private static final Pattern replacePattern = Pattern.compile("@(\\w+)@");
+    private static final char DELIMITER = '@';
+    //Least amount of replacements parsed by every task of a preload.
+    private static final int MIN_CHUNK = 256;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ResolveInfo, ClassValue> FLATTENED =
+        AtomicReferenceFieldUpdater.newUpdater(ResolveInfo.class, ClassValue.class, "flattened");
+
     private Map<String, JsonElement> variables;
-    private Map<String, MemberInfo[]> replacements;
-    private final Map<String, Provider> providers = new HashMap<>();
-    private Map<String, ClassInfo> classInfo;
+    private Map<String, Members> replacements;
+    private final transient Map<String, Provider> providers = new ConcurrentHashMap<>();
+    //Immutable class infos of the replacements and the variables they
+    // depend on, published once built. Replaced by an empty one when
+    // invalidated, so a build started before can't publish its result.
+    private final transient AtomicReference<ClassInfos> classInfos = new AtomicReference<>(new ClassInfos());
     private ProviderFactory<JsonElement> factory;
+    //Flattened class infos of every class, including the entries of
+    // its hierarchy, null if the inheritance is not flattened.
+    private transient volatile ClassValue<ClassInfo> flattened;
+    //Compiled templates of the strings with variables parsed so far.
+    private final transient Map<String, Template> templates = new ConcurrentHashMap<>();
+    //Providers and templates being created right now, so concurrent
+    // resolutions of the same variable only evaluate it once.
+    private final transient SingleFlight<String, Provider> providerFlights = new SingleFlight<>();
+    private final transient SingleFlight<String, Template> templateFlights = new SingleFlight<>();
+    //Builds of the class infos, keyed by the empty class infos they
+    // replace.
+    private final transient SingleFlight<ClassInfos, ClassInfos> classInfoFlights = new SingleFlight<>();
+    //Sources of the compiled templates depending on every variable.
+    private final transient Map<String, Set<String>> dependents = new ConcurrentHashMap<>();
+
+    ResolveInfo() {
+    }
+
+    /**
+     * Creates the info of the given mappings.
+     *
+     * @param variables    of the mappings.
+     * @param replacements entries of every unparsed class name.
+     */
+    ResolveInfo(Map<String, JsonElement> variables, Map<String, Members> replacements) {
+        this.variables = variables;
+        this.replacements = replacements;
+    }
 
     public String parseClass(String str) {
-        Matcher matcher = replacePattern.matcher(str);
-        boolean m = matcher.matches();
-        return matcher.find() ? parseClass(matcher.replaceAll(this::replacer)) : str;
+        return evaluate(str);
+    }
+
+    /**
+     * Replaces the variables of the given string, compiling it into a
+     * {@link Template} the first time it is parsed.
+     *
+     * @param str to parse.
+     *
+     * @return the given string with its variables replaced.
+     */
+    private String evaluate(String str) {
+        if (!Template.hasVariables(str)) {
+            return str;
+        }
+        return template(str).evaluate();
+    }
+
+    /**
+     * @return the compiled template of the given string, compiling it the
+     * first time it is requested.
+     */
+    private Template template(String str) {
+        Template template = templates.get(str);
+        if (template == null) {
+            template = templateFlights.run(str, () -> Utils.computeIfAbsent(templates, str, this::compile));
+        }
+        return template;
     }
 
     public String parseMethod(String method, String cls) {
-        ClassInfo cInfo = getClassInfo().get(parseClass(cls));
-        if (cInfo != null) {
-            MemberInfo member = cInfo.member(method);
-            if (member != null) return member.getOriginal();
+        return parseMethod(method, cls, null);
+    }
+
+    /**
+     * Parses the given method name of the given class, looking for the
+     * entry of the overload with the given parameter descriptor first.
+     * If the inheritance is {@link #setFlattenInheritance(boolean) flattened}
+     * the entries of the superclasses and interfaces are used as well.
+     *
+     * @param method     name in the wrapping interface.
+     * @param cls        class declaring the method.
+     * @param descriptor of the parameters of the method, null to only look
+     *                   up the entries without descriptor.
+     *
+     * @return the original name of the method.
+     */
+    public String parseMethod(String method, Class<?> cls, String descriptor) {
+        ClassValue<ClassInfo> flattened = this.flattened;
+        if (flattened == null) {
+            return parseMethod(method, cls.getName(), descriptor);
+        }
+
+        ClassInfo cInfo = flattened.get(cls);
+        return parseMethod(method, cInfo, cInfo.getSources(), descriptor);
+    }
+
+    /**
+     * Parses the given method name of the given class, looking for the
+     * entry of the overload with the given parameter descriptor first.
+     *
+     * @param method     name in the wrapping interface.
+     * @param cls        name of the class declaring the method.
+     * @param descriptor of the parameters of the method, null to only look
+     *                   up the entries without descriptor.
+     *
+     * @return the original name of the method.
+     */
+    public String parseMethod(String method, String cls, String descriptor) {
+        String parsed = parseClass(cls);
+        return parseMethod(method, getClassInfo().get(parsed), List.of(parsed), descriptor);
+    }
+
+    /**
+     * Reports the entries of the given member of the given classes to the
+     * {@link Dependencies} being recorded, so the resolutions using them are
+     * invalidated if the entries change.
+     */
+    private static void accessed(Collection<String> classes, String member) {
+        for (String cls : classes) {
+            Dependencies.accessed(Dependencies.memberKey(cls, member));
+        }
+    }
+
+    /**
+     * Looks up the entry of the given method name, before and after its
+     * variables are replaced.
+     */
+    private String parseMethod(String method, ClassInfo cInfo, Collection<String> classes, String descriptor) {
+        accessed(classes, method);
+        String original = cInfo == null ? null : cInfo.method(method, descriptor);
+        if (original != null) {
+            return original;
+        }
+
+        String parsed = evaluate(method);
+        if (cInfo != null && !parsed.equals(method)) {
+            accessed(classes, parsed);
+            original = cInfo.method(parsed, descriptor);
+        }
+        return original != null ? original : parsed;
+    }
+
+    /**
+     * Compiles the given template, adding it to the dependents of its
+     * variables.
+     */
+    private Template compile(String str) {
+        //Cached variables already compiled aren't evaluated again.
+        Template template = Template.compile(str, this::provider,
+            variable -> templates.get(DELIMITER + variable + DELIMITER));
+        for (String variable : template.getVariables()) {
+            dependents.computeIfAbsent(variable, v -> ConcurrentHashMap.newKeySet()).add(str);
+        }
+        return template;
+    }
+
+    /**
+     * Invalidates the given variable, so its provider is looked up again
+     * and the templates and class infos depending on it are compiled again
+     * the next time they are used. The rest of the templates are kept.
+     *
+     * @param variable name of the variable to invalidate.
+     *
+     * @return whether anything depending on the variable was invalidated.
+     */
+    public boolean invalidate(String variable) {
+        boolean invalidated = providers.remove(variable) != null;
+        Set<String> sources = dependents.remove(variable);
+        if (sources != null) {
+            invalidated |= !sources.isEmpty();
+            sources.forEach(templates::remove);
+        }
+
+        ClassInfos current = classInfos.get();
+        if (current.variables.contains(variable)) {
+            classInfos.compareAndSet(current, new ClassInfos());
+            ClassValue<ClassInfo> flattened = this.flattened;
+            if (flattened != null) {
+                FLATTENED.compareAndSet(this, flattened, newFlattened());
+            }
+            invalidated = true;
+        }
+        return invalidated;
+    }
+
+    /**
+     * Gets the keys of everything that changed between this info and the
+     * given one: the names of the variables whose value changed and the
+     * {@link Dependencies#memberKey(String, String) member keys} of the members whose entries
+     * changed, parsed with both infos.
+     *
+     * @param next info replacing this one.
+     *
+     * @return the keys to invalidate when this info is replaced.
+     */
+    Set<String> diff(ResolveInfo next) {
+        Set<String> changed = new HashSet<>();
+        Map<String, JsonElement> oldVariables = variables == null ? Map.of() : variables;
+        Map<String, JsonElement> newVariables = next.variables == null ? Map.of() : next.variables;
+        Set<String> names = new HashSet<>(oldVariables.keySet());
+        names.addAll(newVariables.keySet());
+        for (String name : names) {
+            if (!Objects.equals(oldVariables.get(name), newVariables.get(name))) {
+                changed.add(name);
+            }
+        }
+
+        Map<String, Members> oldReplacements = replacements == null ? Map.of() : replacements;
+        Map<String, Members> newReplacements = next.replacements == null ? Map.of() : next.replacements;
+        Set<String> classes = new HashSet<>(oldReplacements.keySet());
+        classes.addAll(newReplacements.keySet());
+        for (String cls : classes) {
+            Members oldMembers = oldReplacements.get(cls);
+            Members newMembers = newReplacements.get(cls);
+            if (Objects.equals(oldMembers, newMembers)) {
+                continue;
+            }
+
+            Set<String> members = new HashSet<>();
+            names(oldMembers, members);
+            names(newMembers, members);
+            for (String member : members) {
+                if (oldMembers != null && newMembers != null && oldMembers.sameEntries(newMembers, member)) {
+                    continue;
+                }
+                if (oldMembers != null) changed.add(Dependencies.memberKey(parseClass(cls), member));
+                if (newMembers != null) changed.add(Dependencies.memberKey(next.parseClass(cls), member));
+            }
+        }
+        return changed;
+    }
+
+    private static void names(Members members, Set<String> names) {
+        if (members != null) {
+            for (int i = 0; i < members.size(); i++) {
+                names.add(members.name(i));
+            }
+        }
+    }
+
+    /**
+     * Gets the fingerprint of the given dependency key: the entries of the
+     * member of a {@link Dependencies#memberKey(String, String) member key},
+     * or the value of a variable.
+     *
+     * @param key of the dependency.
+     *
+     * @return the fingerprint of the key.
+     */
+    String fingerprint(String key) {
+        if (!Dependencies.isMemberKey(key)) {
+            return evaluate(DELIMITER + key + DELIMITER);
         }
-        Matcher matcher = replacePattern.matcher(method);
-        boolean m = matcher.matches();
-        return matcher.find() ? parseMethod(matcher.replaceAll(this::replacer), cls) : method;
+
+        int separator = key.indexOf('#', 1);
+        ClassInfo info = getClassInfo().get(key.substring(1, separator));
+        return info == null ? "" : info.fingerprint(key.substring(separator + 1));
+    }
+
+    /**
+     * Adds the variables and the entries of this info to the given writer,
+     * with the values of all the variables evaluated now. Variables whose
+     * provider fails are skipped.
+     *
+     * @param writer where to add the mappings.
+     */
+    void export(BinaryMappingsWriter writer) {
+        if (variables != null) {
+            for (String name : variables.keySet()) {
+                Provider provider = provider(name);
+                String value = provider == null ? null : provider.get();
+                //Variables which can't be evaluated are left to the
+                // providers registered at runtime.
+                if (value != null) {
+                    writer.variable(name, evaluate(value));
+                }
+            }
+        }
+        getClassInfo().forEach((cls, info) -> info.export(cls, writer));
     }
 
-    private String replacer(MatchResult mr) {
-        String group = mr.group(1);
-        Provider p = Utils.getOrPut(providers, group, () -> {
-            Provider provider = factory.getResolver().getRegistry().getRegisteredProvider(group);
+    /**
+     * Merges the given infos into one, the variables and the entries of
+     * the later infos replacing the ones of the former.
+     *
+     * @param infos to merge.
+     *
+     * @return the merged info.
+     */
+    static ResolveInfo merge(List<ResolveInfo> infos) {
+        if (infos.size() == 1) {
+            return infos.get(0);
+        }
+
+        Map<String, JsonElement> variables = new LinkedHashMap<>();
+        Map<String, Members> replacements = new LinkedHashMap<>();
+        for (ResolveInfo info : infos) {
+            if (info.variables != null) variables.putAll(info.variables);
+            if (info.replacements != null) replacements.putAll(info.replacements);
+        }
+        return new ResolveInfo(variables, replacements);
+    }
+
+    /**
+     * Gets the provider of the given variable, either registered in the
+     * registry of the resolver or created from the variables of the JSON.
+     *
+     * @param group name of the variable.
+     *
+     * @return the provider of the variable, null if there is none.
+     */
+    private Provider provider(String group) {
+        Provider cached = providers.get(group);
+        if (cached != null) {
+            return cached;
+        }
+
+        return providerFlights.run(group, () -> Utils.computeIfAbsent(providers, group, g -> {
+            Provider provider = factory.getResolver().getRegistry().getRegisteredProvider(g);
             if (provider != null)
                 return provider;
 
-            JsonElement variable = variables.get(group);
+            JsonElement variable = variables.get(g);
             if (variable == null)
                 return null;
 
-            provider = factory.from(variable);
-            if (provider == null)
-                return null;
-
-            providers.put(group, provider);
-            return provider;
-        });
-        return p == null ? group : p.get();
+            return factory.from(variable);
+        }));
     }
 
     public String parseField(String name) {
-        Matcher matcher = replacePattern.matcher(name);
-        boolean m = matcher.matches();
-        return matcher.find() ? parseClass(matcher.replaceAll(this::replacer)) : name;
+        return evaluate(name);
+    }
+
+    /**
+     * Parses the given field name of the given class, using the field
+     * entries of the class if it has any.
+     *
+     * @param name of the field in the wrapping interface.
+     * @param cls  name of the class declaring the field.
+     *
+     * @return the original name of the field.
+     */
+    public String parseField(String name, String cls) {
+        String parsed = parseClass(cls);
+        return parseField(name, getClassInfo().get(parsed), List.of(parsed));
+    }
+
+    /**
+     * Parses the given field name of the given class, using the field
+     * entries of the class if it has any, and the ones of its hierarchy
+     * if the inheritance is {@link #setFlattenInheritance(boolean) flattened}.
+     *
+     * @param name of the field in the wrapping interface.
+     * @param cls  class declaring the field.
+     *
+     * @return the original name of the field.
+     */
+    public String parseField(String name, Class<?> cls) {
+        ClassValue<ClassInfo> flattened = this.flattened;
+        if (flattened == null) {
+            return parseField(name, cls.getName());
+        }
+
+        ClassInfo cInfo = flattened.get(cls);
+        return parseField(name, cInfo, cInfo.getSources());
+    }
+
+    private String parseField(String name, ClassInfo cInfo, Collection<String> classes) {
+        accessed(classes, name);
+        if (cInfo != null) {
+            String original = cInfo.field(name);
+            if (original != null) return original;
+        }
+        return parseField(name);
     }
 
     public ProviderFactory<?> getFactory() {
@@ -72,15 +422,280 @@ public class ResolveInfo {
         this.factory = factory;
     }
 
-    public Map<String, ClassInfo> getClassInfo() {
-        if (classInfo != null)
-            return classInfo;
+    /**
+     * @return whether the entries of the superclasses and interfaces of
+     * a class are used to resolve its members.
+     */
+    public boolean isFlattenInheritance() {
+        return flattened != null;
+    }
+
+    /**
+     * Sets whether the entries of the superclasses and interfaces of a
+     * class are used to resolve its members, so a member mapped in a
+     * superclass is found through its subclasses as well. The entries of
+     * every class are flattened into a single table the first time the
+     * class is resolved, closer classes shadowing the entries of the
+     * further ones. Disabled by default.
+     *
+     * @param flatten whether to flatten the inheritance.
+     */
+    public void setFlattenInheritance(boolean flatten) {
+        if (!flatten) {
+            flattened = null;
+        } else if (flattened == null) {
+            FLATTENED.compareAndSet(this, null, newFlattened());
+        }
+    }
+
+    private ClassValue<ClassInfo> newFlattened() {
+        return new ClassValue<>() {
+            @Override
+            protected ClassInfo computeValue(Class<?> type) {
+                return flatten(type);
+            }
+        };
+    }
+
+    /**
+     * Collects the class infos of the given class, its superclasses and
+     * then its interfaces and flattens them.
+     *
+     * @return the flattened class info, with no entries if no class of the
+     * hierarchy has them.
+     */
+    private ClassInfo flatten(Class<?> cls) {
+        PackageTrie<ClassInfo> classInfo = getClassInfo();
+        List<ClassInfo> hierarchy = new ArrayList<>();
+        Set<String> sources = new HashSet<>();
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+        for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+            sources.add(c.getName());
+            ClassInfo info = classInfo.get(c.getName());
+            if (info != null) hierarchy.add(info);
+            Collections.addAll(interfaces, c.getInterfaces());
+        }
+
+        Set<Class<?>> visited = new HashSet<>();
+        while (!interfaces.isEmpty()) {
+            Class<?> i = interfaces.poll();
+            if (!visited.add(i)) continue;
+            sources.add(i.getName());
+            ClassInfo info = classInfo.get(i.getName());
+            if (info != null) hierarchy.add(info);
+            Collections.addAll(interfaces, i.getInterfaces());
+        }
+        return ClassInfo.flatten(hierarchy, Set.copyOf(sources));
+    }
+
+    /**
+     * Gets the class infos of the replacements, keyed by their parsed
+     * class name. They are built the first time they are requested and
+     * never modified afterwards. The class infos which don't depend on
+     * any variable are the ones built while loading.
+     *
+     * @return a frozen trie of the class infos.
+     */
+    public PackageTrie<ClassInfo> getClassInfo() {
+        ClassInfos current = classInfos.get();
+        if (current.trie == null) {
+            ClassInfos empty = current;
+            current = classInfoFlights.run(empty, () -> buildClassInfo(empty, null));
+        }
+        Dependencies.accessed(current.variables);
+        return current.trie;
+    }
 
-        classInfo = new HashMap<>();
-        replacements.forEach((s, memberInfos) -> {
-            String cls = parseClass(s);
-            classInfo.put(cls, new ClassInfo(memberInfos));
+    /**
+     * Evaluates the variables and builds the class infos now instead of
+     * on their first use, splitting the work across the given pool.
+     *
+     * <p>
+     * The variables are evaluated in the order of their dependencies, the
+     * ones which don't depend on each other concurrently, so the value of
+     * every cached variable is already known when the variables using it
+     * are compiled. Variables in a cycle are left to fail on their first
+     * use. Then the replacements are parsed in chunks by the pool and
+     * merged in their order into the class infos.
+     *
+     * @param pool where to run the evaluations.
+     */
+    void preload(ForkJoinPool pool) {
+        for (List<String> level : variableLevels()) {
+            List<Runnable> actions = new ArrayList<>();
+            for (String variable : level) {
+                actions.add(() -> preloadVariable(variable));
+            }
+            invokeAll(pool, actions);
+        }
+
+        //Not built through the single flight, so the workers calling
+        // getClassInfo() from a provider build it themselves instead of
+        // waiting for this thread, which is waiting for them.
+        ClassInfos current = classInfos.get();
+        if (current.trie == null) {
+            buildClassInfo(current, pool);
+        }
+    }
+
+    /**
+     * Compiles the template of the given variable, which evaluates it if
+     * it's cached. Failures are left to the first use of the variable.
+     */
+    private void preloadVariable(String variable) {
+        try {
+            template(DELIMITER + variable + DELIMITER);
+        } catch (RuntimeException e) {
+            Utils.logger().log(Level.FINE, "Couldn't preload the variable " + variable, e);
+        }
+    }
+
+    /**
+     * Sorts the variables of the JSON by their dependencies.
+     *
+     * @return the variables split in levels, where every variable only
+     * depends on the ones of the previous levels. The variables in a cycle
+     * are left out.
+     */
+    private List<List<String>> variableLevels() {
+        if (variables == null) {
+            return List.of();
+        }
+
+        Map<String, Integer> remaining = new HashMap<>();
+        Map<String, List<String>> users = new HashMap<>();
+        List<String> level = new ArrayList<>();
+        variables.forEach((name, value) -> {
+            Set<String> references = new HashSet<>();
+            references(value, references);
+            references.retainAll(variables.keySet());
+            for (String reference : references) {
+                users.computeIfAbsent(reference, r -> new ArrayList<>()).add(name);
+            }
+            remaining.put(name, references.size());
+            if (references.isEmpty()) level.add(name);
         });
-        return classInfo;
+
+        List<List<String>> levels = new ArrayList<>();
+        for (List<String> current = level; !current.isEmpty(); ) {
+            levels.add(current);
+            List<String> next = new ArrayList<>();
+            for (String variable : current) {
+                for (String user : users.getOrDefault(variable, List.of())) {
+                    if (remaining.merge(user, -1, Integer::sum) == 0) next.add(user);
+                }
+            }
+            current = next;
+        }
+        return levels;
+    }
+
+    /**
+     * Adds the variables used by the strings of the given value.
+     */
+    private static void references(JsonElement value, Set<String> references) {
+        if (value.isJsonPrimitive()) {
+            String str = value.getAsString();
+            if (Template.hasVariables(str)) {
+                references.addAll(Template.compile(str, v -> null).getVariables());
+            }
+        } else if (value.isJsonObject()) {
+            value.getAsJsonObject().entrySet().forEach(e -> references(e.getValue(), references));
+        } else if (value.isJsonArray()) {
+            value.getAsJsonArray().forEach(e -> references(e, references));
+        }
+    }
+
+    /**
+     * Builds the class infos without holding any lock, and publishes them
+     * unless they were built or invalidated meanwhile.
+     *
+     * @param empty class infos replaced by the built ones.
+     * @param pool  where to parse the replacements, null to parse them in
+     *              the current thread.
+     *
+     * @return the built class infos, or the ones published meanwhile.
+     */
+    private ClassInfos buildClassInfo(ClassInfos empty, ForkJoinPool pool) {
+        ClassInfos current = classInfos.get();
+        if (current != empty) {
+            //Built by a former flight, or invalidated and built again.
+            return current.trie != null ? current : buildClassInfo(current, pool);
+        }
+
+        List<Map.Entry<String, Members>> entries = new ArrayList<>(replacements.entrySet());
+        String[] names = new String[entries.size()];
+        ClassInfo[] infos = new ClassInfo[entries.size()];
+        Set<String> variables = ConcurrentHashMap.newKeySet();
+        if (pool == null) {
+            buildClassInfo(entries, 0, entries.size(), names, infos, variables);
+        } else {
+            int chunk = Math.max(MIN_CHUNK, entries.size() / (4 * pool.getParallelism()));
+            List<Runnable> actions = new ArrayList<>();
+            for (int from = 0; from < entries.size(); from += chunk) {
+                int start = from, end = Math.min(from + chunk, entries.size());
+                actions.add(() -> buildClassInfo(entries, start, end, names, infos, variables));
+            }
+            invokeAll(pool, actions);
+        }
+
+        //Merged in order, so the later entries replace the former ones.
+        PackageTrie<ClassInfo> trie = new PackageTrie<>();
+        for (int i = 0; i < names.length; i++) {
+            trie.put(names[i], infos[i]);
+        }
+        ClassInfos built = new ClassInfos(trie.freeze(), Set.copyOf(variables));
+        if (classInfos.compareAndSet(empty, built)) {
+            return built;
+        }
+
+        //Invalidated while building, the built class infos may be
+        // outdated, so they are only used by this resolution.
+        current = classInfos.get();
+        return current.trie != null ? current : built;
+    }
+
+    private void buildClassInfo(List<Map.Entry<String, Members>> entries, int from, int to,
+                                String[] names, ClassInfo[] infos, Set<String> variables) {
+        Dependencies.record(variables, () -> {
+            for (int i = from; i < to; i++) {
+                String cls = entries.get(i).getKey();
+                Members members = entries.get(i).getValue();
+                ClassInfo info = members.getConstant();
+                names[i] = info != null ? cls : parseClass(cls);
+                infos[i] = info != null ? info : new ClassInfo(members, this::parseClass);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Class infos of the replacements along with the variables they depend
+     * on. The empty ones, without a trie, stand for class infos not built
+     * yet.
+     */
+    private static final class ClassInfos {
+        private final PackageTrie<ClassInfo> trie;
+        private final Set<String> variables;
+
+        private ClassInfos() {
+            this(null, Set.of());
+        }
+
+        private ClassInfos(PackageTrie<ClassInfo> trie, Set<String> variables) {
+            this.trie = trie;
+            this.variables = variables;
+        }
+    }
+
+    /**
+     * Runs the given actions in the given pool and waits for all of them.
+     */
+    private static void invokeAll(ForkJoinPool pool, List<Runnable> actions) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (Runnable action : actions) {
+            tasks.add(ForkJoinTask.adapt(action));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
     }
 }
@@ -0,0 +1,143 @@
+package mr.tommy.obbo.mapping.resolver.mappings;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads the lines of a mappings file into a reused buffer, so the lines
+ * are parsed in place instead of creating a string for each of them.
+ *
+ * <p>
+ * The current line is the range between {@link #start} and {@link #end}
+ * of {@link #buf}, without its line terminator. The buffer may be replaced
+ * when a line doesn't fit in it, so it must be read again after every
+ * {@link #next()}.
+ */
+final class LineScanner {
+    private final Reader reader;
+    char[] buf = new char[8192];
+    //Bounds of the current line.
+    int start, end;
+    //Amount of characters read into the buffer.
+    private int limit;
+    //Start of the next line.
+    private int next;
+    private boolean eof;
+    private int lineNumber;
+
+    LineScanner(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Moves to the next line.
+     *
+     * @return false if there are no more lines.
+     *
+     * @throws IOException if the reader fails.
+     */
+    boolean next() throws IOException {
+        int scanned = next;
+        while (true) {
+            for (int i = scanned; i < limit; i++) {
+                if (buf[i] == '\n') {
+                    line(next, i);
+                    next = i + 1;
+                    return true;
+                }
+            }
+
+            if (eof) {
+                if (next < limit) {
+                    line(next, limit);
+                    next = limit;
+                    return true;
+                }
+                return false;
+            }
+
+            //Keep the partial line and read more.
+            scanned = limit - next;
+            System.arraycopy(buf, next, buf, 0, scanned);
+            limit = scanned;
+            next = 0;
+            if (limit == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            int read = reader.read(buf, limit, buf.length - limit);
+            if (read < 0) {
+                eof = true;
+            } else {
+                limit += read;
+            }
+        }
+    }
+
+    private void line(int start, int end) {
+        this.start = start;
+        this.end = end > start && buf[end - 1] == '\r' ? end - 1 : end;
+        lineNumber++;
+    }
+
+    /**
+     * @return the index of the given char in the current line from the
+     * given index, or the end of the line if it's not there.
+     */
+    int indexOf(char c, int from) {
+        for (int i = from; i < end; i++) {
+            if (buf[i] == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * @return the index of the first char of the current line from the
+     * given index which is not the given one.
+     */
+    int skip(char c, int from) {
+        while (from < end && buf[from] == c) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Splits the current line from the given index by the given delimiter.
+     *
+     * @param bounds where the start and end of every column are stored,
+     *               grown if needed.
+     *
+     * @return the bounds, the amount of columns is stored at index 0.
+     */
+    int[] split(char delimiter, int from, int[] bounds) {
+        int count = 0;
+        for (int i = from; ; ) {
+            int columnEnd = indexOf(delimiter, i);
+            if (2 * count + 2 >= bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[2 * count + 1] = i;
+            bounds[2 * count + 2] = columnEnd;
+            count++;
+            if (columnEnd == end) {
+                break;
+            }
+            i = columnEnd + 1;
+        }
+        bounds[0] = count;
+        return bounds;
+    }
+
+    /**
+     * @param message of the error.
+     *
+     * @return a new exception about a malformed current line.
+     */
+    IOException error(String message) {
+        return new IOException("Line " + lineNumber + ": " + message + ": "
+            + new String(buf, start, end - start));
+    }
+}
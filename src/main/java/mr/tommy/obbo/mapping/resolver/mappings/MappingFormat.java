@@ -0,0 +1,56 @@
+package mr.tommy.obbo.mapping.resolver.mappings;
+
+import java.io.IOException;
+
+/**
+ * Formats of the mappings files read by the {@link MappingsResolver}.
+ */
+public enum MappingFormat {
+    /**
+     * ProGuard and R8 {@code mapping.txt} files.
+     */
+    PROGUARD {
+        @Override
+        MappingIndex parse(LineScanner in) throws IOException {
+            return ProGuardParser.parse(in);
+        }
+    },
+    /**
+     * Tiny v1 and v2 files, the version is read from their header.
+     */
+    TINY {
+        @Override
+        MappingIndex parse(LineScanner in) throws IOException {
+            return TinyParser.parse(in);
+        }
+    },
+    /**
+     * SRG files, with {@code CL:}, {@code FD:} and {@code MD:} entries.
+     */
+    SRG {
+        @Override
+        MappingIndex parse(LineScanner in) throws IOException {
+            return SrgParser.parseSrg(in);
+        }
+    },
+    /**
+     * TSRG v1 and v2 files, with the members indented below their class.
+     */
+    TSRG {
+        @Override
+        MappingIndex parse(LineScanner in) throws IOException {
+            return SrgParser.parseTsrg(in);
+        }
+    };
+
+    /**
+     * Parses the lines of a file of this format into a new index.
+     *
+     * @param in lines of the file.
+     *
+     * @return the index of the file.
+     *
+     * @throws IOException if the file can't be read or is malformed.
+     */
+    abstract MappingIndex parse(LineScanner in) throws IOException;
+}
@@ -0,0 +1,302 @@
+package mr.tommy.obbo.mapping.resolver.mappings;
+
+import mr.tommy.obbo.mapping.resolver.binary.BinaryMappingsWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compact index of the mappings of a file, filled while the file is
+ * parsed and only read afterwards.
+ *
+ * <p>
+ * All the names are kept in a {@link StringPool} and the entries are
+ * tuples of their ids in open addressed tables, so there is no object
+ * per entry. Class names are in their internal form, with slashes, and
+ * the descriptors of the methods only keep their parameters. Members are
+ * keyed by the obfuscated name of their class, since it's the one of the
+ * runtime classes, and their named name.
+ */
+final class MappingIndex {
+    //Descriptor of the entries matching any overload.
+    private static final String ANY = "";
+
+    final StringPool pool = new StringPool();
+    private final int any = pool.intern(ANY);
+    //Named class -> obfuscated class.
+    private final IntTable classes = new IntTable();
+    //Obfuscated class -> named class.
+    private final IntTable named = new IntTable();
+    //(Obfuscated owner, named name, descriptor) -> obfuscated name.
+    private final IntTable methods = new IntTable();
+    //(Obfuscated owner, named name) -> obfuscated name.
+    private final IntTable fields = new IntTable();
+    //Whether the descriptors use the named class names instead of the
+    // obfuscated ones.
+    private final boolean namedDescriptors;
+
+    /**
+     * @param namedDescriptors whether the descriptors of the file use the
+     *                         named class names.
+     */
+    MappingIndex(boolean namedDescriptors) {
+        this.namedDescriptors = namedDescriptors;
+    }
+
+    /**
+     * Interns a class name, in any form.
+     */
+    int className(char[] buf, int start, int end) {
+        return pool.intern(buf, start, end, true);
+    }
+
+    /**
+     * Interns a member name.
+     */
+    int name(char[] buf, int start, int end) {
+        return pool.intern(buf, start, end, false);
+    }
+
+    /**
+     * Interns the parameters of the given method descriptor, dropping its
+     * return type.
+     */
+    int descriptor(char[] buf, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buf[i] == ')') {
+                return pool.intern(buf, start, i + 1, false);
+            }
+        }
+        return pool.intern(buf, start, end, false);
+    }
+
+    void putClass(int namedName, int obfuscated) {
+        classes.putIfAbsent(namedName, 0, 0, obfuscated);
+        named.putIfAbsent(obfuscated, 0, 0, namedName);
+    }
+
+    void putMethod(int owner, int namedName, int descriptor, int obfuscated) {
+        methods.putIfAbsent(owner, namedName, descriptor, obfuscated);
+        //Also reachable without descriptor, the first overload wins.
+        methods.putIfAbsent(owner, namedName, any, obfuscated);
+    }
+
+    void putField(int owner, int namedName, int obfuscated) {
+        fields.putIfAbsent(owner, namedName, 0, obfuscated);
+    }
+
+    /**
+     * @param namedName internal name of the class.
+     *
+     * @return the obfuscated internal name of the class, null if unmapped.
+     */
+    @Nullable
+    String obfuscatedClass(@NotNull String namedName) {
+        int id = pool.find(namedName);
+        return id < 0 ? null : string(classes.get(id, 0, 0));
+    }
+
+    /**
+     * @param obfuscated internal name of the class.
+     *
+     * @return the named internal name of the class, null if unmapped.
+     */
+    @Nullable
+    String namedClass(@NotNull String obfuscated) {
+        int id = pool.find(obfuscated);
+        return id < 0 ? null : string(named.get(id, 0, 0));
+    }
+
+    /**
+     * Looks up a method by its descriptor, or by its name alone if no
+     * overload has the descriptor.
+     *
+     * @param owner      obfuscated internal name of the class.
+     * @param namedName  of the method.
+     * @param descriptor of the parameters, using the runtime class names.
+     *
+     * @return the obfuscated name of the method, null if unmapped.
+     */
+    @Nullable
+    String method(@NotNull String owner, @NotNull String namedName, @NotNull String descriptor) {
+        int ownerId = pool.find(owner), nameId = pool.find(namedName);
+        if (ownerId < 0 || nameId < 0) {
+            return null;
+        }
+
+        int descriptorId = pool.find(namedDescriptors ? toNamed(descriptor) : descriptor);
+        int obfuscated = descriptorId < 0 ? -1 : methods.get(ownerId, nameId, descriptorId);
+        return string(obfuscated >= 0 ? obfuscated : methods.get(ownerId, nameId, any));
+    }
+
+    /**
+     * @param owner     obfuscated internal name of the class.
+     * @param namedName of the field.
+     *
+     * @return the obfuscated name of the field, null if unmapped.
+     */
+    @Nullable
+    String field(@NotNull String owner, @NotNull String namedName) {
+        int ownerId = pool.find(owner), nameId = pool.find(namedName);
+        return ownerId < 0 || nameId < 0 ? null : string(fields.get(ownerId, nameId, 0));
+    }
+
+    /**
+     * @return the amount of classes mapped.
+     */
+    int classCount() {
+        return classes.size;
+    }
+
+    /**
+     * @return a fingerprint of all the names and entries of this index,
+     * equal for the indexes parsed from the same mappings.
+     */
+    String fingerprint() {
+        long[] hash = {pool.size()};
+        for (int i = 0; i < pool.size(); i++) {
+            hash[0] = 31 * hash[0] + pool.get(i).hashCode();
+        }
+        for (IntTable table : new IntTable[]{classes, methods, fields}) {
+            table.forEach((a, b, c, value) -> hash[0] = 31 * (31 * (31 * (31 * hash[0] + a) + b) + c) + value);
+        }
+        return Long.toHexString(hash[0]);
+    }
+
+    /**
+     * Adds the entries of this index to the given writer, with the class
+     * names in their binary form and the descriptors using the obfuscated
+     * names.
+     *
+     * @param writer where to add the mappings.
+     */
+    void export(BinaryMappingsWriter writer) {
+        classes.forEach((namedName, b, c, obfuscated) ->
+            writer.alias(binaryName(namedName), binaryName(obfuscated)));
+        methods.forEach((owner, name, descriptor, obfuscated) -> {
+            String d = descriptor == any ? null : pool.get(descriptor);
+            writer.method(binaryName(owner), pool.get(name),
+                d != null && namedDescriptors ? translate(d, this::obfuscatedClass) : d, pool.get(obfuscated));
+        });
+        fields.forEach((owner, name, c, obfuscated) ->
+            writer.field(binaryName(owner), pool.get(name), pool.get(obfuscated)));
+    }
+
+    private String binaryName(int id) {
+        return pool.get(id).replace('/', '.');
+    }
+
+    /**
+     * Translates the class names of the given descriptor from the
+     * obfuscated names to the named ones.
+     */
+    private String toNamed(String descriptor) {
+        return translate(descriptor, this::namedClass);
+    }
+
+    /**
+     * Translates the class names of the given descriptor with the given
+     * function, keeping the ones it returns null for.
+     */
+    private static String translate(String descriptor, UnaryOperator<String> names) {
+        int start = descriptor.indexOf('L');
+        if (start < 0) {
+            return descriptor;
+        }
+
+        StringBuilder builder = new StringBuilder(descriptor.length());
+        int last = 0;
+        for (; start >= 0; start = descriptor.indexOf('L', last)) {
+            int end = descriptor.indexOf(';', start);
+            String name = names.apply(descriptor.substring(start + 1, end));
+            builder.append(descriptor, last, start + 1)
+                .append(name == null ? descriptor.substring(start + 1, end) : name);
+            last = end;
+        }
+        return builder.append(descriptor, last, descriptor.length()).toString();
+    }
+
+    private String string(int id) {
+        return id < 0 ? null : pool.get(id);
+    }
+
+    private interface Entry {
+        void accept(int a, int b, int c, int value);
+    }
+
+    /**
+     * Open addressed table of three int keys to an int value.
+     */
+    private static final class IntTable {
+        private int[] keys = new int[3 * 256];
+        private int[] values = filled(256);
+        private int size;
+
+        private int get(int a, int b, int c) {
+            int mask = values.length - 1;
+            for (int slot = hash(a, b, c) & mask; values[slot] >= 0; slot = (slot + 1) & mask) {
+                if (keys[3 * slot] == a && keys[3 * slot + 1] == b && keys[3 * slot + 2] == c) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        private void putIfAbsent(int a, int b, int c, int value) {
+            int mask = values.length - 1;
+            int slot = hash(a, b, c) & mask;
+            for (; values[slot] >= 0; slot = (slot + 1) & mask) {
+                if (keys[3 * slot] == a && keys[3 * slot + 1] == b && keys[3 * slot + 2] == c) {
+                    return;
+                }
+            }
+
+            keys[3 * slot] = a;
+            keys[3 * slot + 1] = b;
+            keys[3 * slot + 2] = c;
+            values[slot] = value;
+            if (++size * 2 > values.length) {
+                rehash();
+            }
+        }
+
+        private void rehash() {
+            int[] oldKeys = keys, oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = filled(oldValues.length * 2);
+            int mask = values.length - 1;
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] < 0) continue;
+                int a = oldKeys[3 * i], b = oldKeys[3 * i + 1], c = oldKeys[3 * i + 2];
+                int slot = hash(a, b, c) & mask;
+                while (values[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[3 * slot] = a;
+                keys[3 * slot + 1] = b;
+                keys[3 * slot + 2] = c;
+                values[slot] = oldValues[i];
+            }
+        }
+
+        private void forEach(Entry action) {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] >= 0) {
+                    action.accept(keys[3 * i], keys[3 * i + 1], keys[3 * i + 2], values[i]);
+                }
+            }
+        }
+
+        private static int hash(int a, int b, int c) {
+            return StringPool.mix((a * 31 + b) * 31 + c);
+        }
+
+        private static int[] filled(int length) {
+            int[] array = new int[length];
+            Arrays.fill(array, -1);
+            return array;
+        }
+    }
+}
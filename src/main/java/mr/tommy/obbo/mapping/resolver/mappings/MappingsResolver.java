@@ -0,0 +1,268 @@
+package mr.tommy.obbo.mapping.resolver.mappings;
+
+import mr.tommy.obbo.entity.ProviderRegistry;
+import mr.tommy.obbo.mapping.Resolver;
+import mr.tommy.obbo.mapping.resolver.Dependencies;
+import mr.tommy.obbo.mapping.resolver.Provider;
+import mr.tommy.obbo.mapping.resolver.Template;
+import mr.tommy.obbo.mapping.resolver.binary.BinaryMappingsWriter;
+import mr.tommy.obbo.mapping.resolver.binary.BinaryResolver;
+import mr.tommy.obbo.reflection.CachedMethod;
+import mr.tommy.obbo.reflection.ClassData;
+import mr.tommy.obbo.reflection.MethodDescriptor;
+import mr.tommy.obbo.util.Utils;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Resolver of the mappings files generated by the obfuscators and the
+ * mapping tools, like ProGuard, Tiny and SRG files.
+ *
+ * <p>
+ * The wrapping interfaces use the named names of the mappings, which are
+ * translated to the obfuscated ones of the runtime classes. Names without
+ * mapping entry are used as they are. The files are parsed line by line
+ * straight into a compact index, so even files of hundreds of thousands
+ * of entries are loaded without building an object per entry.
+ *
+ * <p>
+ * Names may still have variables enclosed between two {@code @}, which
+ * are resolved by the {@link Provider providers} registered in the
+ * {@link #getRegistry() registry} before looking the names up.
+ *
+ * @see MappingFormat
+ */
+public class MappingsResolver implements Resolver {
+    //Index of the mappings, never modified once parsed.
+    private final MappingIndex index;
+    //The Provider Registry of the code-created Providers.
+    private final ProviderRegistry registry = new ProviderRegistry();
+    //Templates of the names used so far.
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+    //Listeners notified when a variable is invalidated.
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    //Fingerprint of the index, null until first requested.
+    private volatile String fingerprint;
+
+    private MappingsResolver(MappingIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Creates a new resolver reading the mappings of the given reader.
+     *
+     * @param reader of the mappings.
+     * @param format of the mappings.
+     *
+     * @return the resolver of the mappings.
+     *
+     * @throws IOException if the mappings can't be read or are malformed.
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull MappingsResolver of(@NotNull Reader reader, @NotNull MappingFormat format) throws IOException {
+        return new MappingsResolver(format.parse(new LineScanner(reader)));
+    }
+
+    /**
+     * Creates a new resolver reading the mappings of the given file.
+     *
+     * @param file   of the mappings.
+     * @param format of the mappings.
+     *
+     * @return the resolver of the mappings.
+     *
+     * @throws IOException if the file can't be read or is malformed.
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull MappingsResolver of(@NotNull Path file, @NotNull MappingFormat format) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return of(reader, format);
+        }
+    }
+
+    /**
+     * Resolves the ClassData of the obfuscated class of the given named
+     * class name.
+     *
+     * @param className named name of the class, may have variables.
+     *
+     * @return the ClassData of the class, null if not found.
+     */
+    @Override
+    public ClassData resolveClass(String className) {
+        return ClassData.of(parseClass(className));
+    }
+
+    /**
+     * Resolves the ClassData of the obfuscated class of the given named
+     * class name.
+     *
+     * @param className named name of the class, may have variables.
+     * @param loader    to load the class from.
+     *
+     * @return the ClassData of the class, null if not found.
+     */
+    @Override
+    public ClassData resolveClass(String className, ClassLoader loader) {
+        return ClassData.of(parseClass(className), loader);
+    }
+
+    /**
+     * Resolves the method of the target class mapped from the given named
+     * method name and parameters. Overloads are told apart by their
+     * descriptor, falling back to the first overload with the same name.
+     *
+     * @param targetClass       runtime class declaring the method.
+     * @param wrappingInterface of the interface proxying the target class.
+     * @param methodName        named name of the method, may have variables.
+     * @param params            runtime types of the parameters.
+     *
+     * @return the method of the target class, null if not found.
+     */
+    @Override
+    public CachedMethod resolveMethod(Class<?> targetClass, Class<?> wrappingInterface, String methodName, Class<?>... params) {
+        String name = evaluate(methodName);
+        Dependencies.accessed(Dependencies.memberKey(targetClass.getName(), name));
+        String obfuscated = index.method(internalName(targetClass), name, Utils.descriptor(params));
+        return ClassData.of(targetClass).method(MethodDescriptor.of(obfuscated == null ? name : obfuscated, params));
+    }
+
+    /**
+     * Resolves the field of the given class mapped from the given named
+     * field name.
+     *
+     * @param cls   runtime class declaring the field.
+     * @param field named name of the field, may have variables.
+     *
+     * @return the field of the class, null if not found.
+     */
+    @Override
+    public Field resolveField(Class<?> cls, String field) {
+        String name = evaluate(field);
+        Dependencies.accessed(Dependencies.memberKey(cls.getName(), name));
+        String obfuscated = index.field(internalName(cls), name);
+        return ClassData.of(cls).field(obfuscated == null ? name : obfuscated);
+    }
+
+    /**
+     * Translates the given named class name into the obfuscated one.
+     *
+     * @param className named name of the class, may have variables.
+     *
+     * @return the obfuscated binary name of the class, or the given one
+     * if it isn't mapped.
+     */
+    @NotNull
+    public String parseClass(@NotNull String className) {
+        String name = evaluate(className);
+        String obfuscated = index.obfuscatedClass(name.replace('.', '/'));
+        return obfuscated == null ? name : obfuscated.replace('/', '.');
+    }
+
+    /**
+     * Compiles the mappings of this resolver into a binary file, which can
+     * be opened by the {@link BinaryResolver} without parsing the mappings
+     * again.
+     *
+     * @param file to write.
+     *
+     * @throws IOException if the file can't be written.
+     */
+    public void compile(@NotNull Path file) throws IOException {
+        BinaryMappingsWriter writer = new BinaryMappingsWriter();
+        index.export(writer);
+        writer.write(file);
+    }
+
+    /**
+     * @return the amount of classes mapped.
+     */
+    public int getClassCount() {
+        return index.classCount();
+    }
+
+    /**
+     * @return the registry of this Resolver.
+     */
+    @Override
+    public ProviderRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Registers a Provider directly into the {@link #getRegistry() registry}
+     * of this resolver.
+     *
+     * @param name     where to link this provider with.
+     * @param provider to register.
+     */
+    public void registerProvider(String name, Provider provider) {
+        registry.registerProvider(name, provider);
+    }
+
+    /**
+     * Drops the names resolved from the given variable and notifies the
+     * listeners.
+     *
+     * @param variable name of the variable which changed.
+     */
+    @Override
+    public void invalidate(String variable) {
+        templates.values().removeIf(template -> template.getVariables().contains(variable));
+        for (Consumer<String> listener : listeners) {
+            listener.accept(variable);
+        }
+    }
+
+    @Override
+    public void addInvalidationListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Gets the fingerprint of the given dependency key: the value of a
+     * variable, or the fingerprint of the whole mappings for the
+     * {@link Dependencies#memberKey(String, String) member keys}, since the
+     * mappings never change once parsed.
+     *
+     * @param key of the dependency.
+     *
+     * @return the fingerprint of the key.
+     */
+    @Override
+    public String fingerprint(String key) {
+        if (!Dependencies.isMemberKey(key)) {
+            return evaluate("@" + key + "@");
+        }
+
+        String f = fingerprint;
+        if (f == null) {
+            fingerprint = f = index.fingerprint();
+        }
+        return f;
+    }
+
+    private String evaluate(String name) {
+        if (!Template.hasVariables(name)) {
+            return name;
+        }
+        return Utils.computeIfAbsent(templates, name,
+            source -> Template.compile(source, registry::getRegisteredProvider)).evaluate();
+    }
+
+    private static String internalName(Class<?> cls) {
+        return cls.getName().replace('.', '/');
+    }
+}
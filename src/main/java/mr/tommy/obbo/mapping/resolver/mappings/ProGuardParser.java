@@ -0,0 +1,164 @@
+package mr.tommy.obbo.mapping.resolver.mappings;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Parser of the ProGuard and R8 {@code mapping.txt} files.
+ *
+ * <pre>
+ *     com.example.Named -> a.b:
+ *         int count -> a
+ *         1:4:void value(int,java.lang.String) -> b
+ *         com.example.Other inlined() -> c
+ * </pre>
+ * The types of the members use the named class names. Line numbers and
+ * the entries of methods inlined from other classes are ignored.
+ */
+final class ProGuardParser {
+    //Java names of the primitive types and their descriptors.
+    private static final String[] PRIMITIVES = {"int", "long", "boolean", "byte", "char", "short", "float", "double"};
+    private static final String DESCRIPTORS = "IJZBCSFD";
+
+    private ProGuardParser() {
+    }
+
+    static MappingIndex parse(LineScanner in) throws IOException {
+        MappingIndex index = new MappingIndex(true);
+        //Reused to build the descriptors.
+        char[] descriptor = new char[256];
+        int owner = -1;
+        while (in.next()) {
+            char[] buf = in.buf;
+            int i = in.skip(' ', in.skip('\t', in.start));
+            if (i == in.end || buf[i] == '#') {
+                continue;
+            }
+
+            int arrow = arrow(in, i);
+            int obfStart = in.skip(' ', arrow + 2);
+            int nameEnd = trimEnd(buf, i, arrow);
+            if (i == in.start) {
+                //Class line, ends with a colon.
+                int obfEnd = trimEnd(buf, obfStart, in.end);
+                if (obfEnd > obfStart && buf[obfEnd - 1] == ':') obfEnd--;
+                owner = index.className(buf, obfStart, obfEnd);
+                index.putClass(index.className(buf, i, nameEnd), owner);
+                continue;
+            }
+
+            if (owner < 0) {
+                throw in.error("Member outside of a class");
+            }
+            int obfuscated = index.name(buf, obfStart, trimEnd(buf, obfStart, in.end));
+
+            //Skip the line numbers and the type.
+            while (i < nameEnd && (Character.isDigit(buf[i]) || buf[i] == ':')) i++;
+            int typeEnd = in.indexOf(' ', i);
+            if (typeEnd >= nameEnd) {
+                throw in.error("Missing member type");
+            }
+
+            int nameStart = typeEnd + 1;
+            int open = in.indexOf('(', nameStart);
+            if (open >= nameEnd) {
+                index.putField(owner, index.name(buf, nameStart, nameEnd), obfuscated);
+                continue;
+            }
+
+            if (in.indexOf('.', nameStart) < open) {
+                //Inlined from another class.
+                continue;
+            }
+
+            int close = in.indexOf(')', open);
+            if (close == in.end) {
+                throw in.error("Unclosed parameters");
+            }
+            descriptor = descriptor(buf, open + 1, close, descriptor);
+            index.putMethod(owner, index.name(buf, nameStart, open),
+                index.descriptor(descriptor, 1, descriptor[0] + 1), obfuscated);
+        }
+        return index;
+    }
+
+    private static int arrow(LineScanner in, int from) throws IOException {
+        for (int i = in.indexOf('-', from); i < in.end - 1; i = in.indexOf('-', i + 1)) {
+            if (in.buf[i + 1] == '>') {
+                return i;
+            }
+        }
+        throw in.error("Missing ->");
+    }
+
+    private static int trimEnd(char[] buf, int start, int end) {
+        while (end > start && buf[end - 1] == ' ') end--;
+        return end;
+    }
+
+    /**
+     * Writes the descriptor of the given Java parameter types into the
+     * given array, after its length which is stored at index 0.
+     *
+     * @return the array, grown if needed.
+     */
+    private static char[] descriptor(char[] buf, int start, int end, char[] out) {
+        int length = 1;
+        out = ensure(out, length + 1);
+        out[length++] = '(';
+        for (int i = start; i < end; ) {
+            int typeEnd = i;
+            while (typeEnd < end && buf[typeEnd] != ',') typeEnd++;
+
+            int nameEnd = typeEnd;
+            while (nameEnd - 2 >= i && buf[nameEnd - 2] == '[' && buf[nameEnd - 1] == ']') {
+                nameEnd -= 2;
+            }
+            out = ensure(out, length + (typeEnd - i) + 2);
+            for (int d = nameEnd; d < typeEnd; d += 2) {
+                out[length++] = '[';
+            }
+
+            char primitive = primitive(buf, i, nameEnd);
+            if (primitive != 0) {
+                out[length++] = primitive;
+            } else {
+                out[length++] = 'L';
+                for (int c = i; c < nameEnd; c++) {
+                    out[length++] = buf[c] == '.' ? '/' : buf[c];
+                }
+                out[length++] = ';';
+            }
+            i = typeEnd + 1;
+        }
+        out = ensure(out, length + 1);
+        out[length++] = ')';
+        out[0] = (char) (length - 1);
+        return out;
+    }
+
+    private static char[] ensure(char[] buf, int length) {
+        return length <= buf.length ? buf : Arrays.copyOf(buf, Math.max(length, buf.length * 2));
+    }
+
+    private static char primitive(char[] buf, int start, int end) {
+        for (int p = 0; p < PRIMITIVES.length; p++) {
+            if (equals(PRIMITIVES[p], buf, start, end)) {
+                return DESCRIPTORS.charAt(p);
+            }
+        }
+        return 0;
+    }
+
+    private static boolean equals(String value, char[] buf, int start, int end) {
+        if (value.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i - start) != buf[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,138 @@
+package mr.tommy.obbo.mapping.resolver.mappings;
+
+import java.io.IOException;
+
+/**
+ * Parser of the SRG and TSRG (v1 and v2) files.
+ *
+ * <pre>
+ *     CL: a/b com/example/Named
+ *     FD: a/b/a com/example/Named/count
+ *     MD: a/b/b (I)V com/example/Named/value (I)V
+ * </pre>
+ * <pre>
+ *     a/b com/example/Named
+ *     	a count
+ *     	b (I)V value
+ * </pre>
+ * The descriptors of both formats use the obfuscated names. TSRG v2 files
+ * take the first namespace as the obfuscated one and the last one as the
+ * named one, ignoring the parameters and the static markers.
+ */
+final class SrgParser {
+    private SrgParser() {
+    }
+
+    static MappingIndex parseSrg(LineScanner in) throws IOException {
+        MappingIndex index = new MappingIndex(false);
+        int[] columns = new int[16];
+        while (in.next()) {
+            if (in.start == in.end || in.buf[in.start] == '#') {
+                continue;
+            }
+
+            columns = in.split(' ', in.start, columns);
+            char[] buf = in.buf;
+            if (columns[2] - columns[1] != 3 || buf[columns[1] + 2] != ':') {
+                throw in.error("Unknown SRG entry");
+            }
+            char kind = buf[columns[1]];
+            if (kind == 'C' && columns[0] >= 3) {
+                index.putClass(index.className(buf, columns[5], columns[6]),
+                    index.className(buf, columns[3], columns[4]));
+            } else if (kind == 'F' && columns[0] >= 3) {
+                //Fields may have descriptors after their names.
+                int named = columns[0] >= 5 ? 3 : 2;
+                int separator = memberSeparator(in, columns[3], columns[4]);
+                index.putField(index.className(buf, columns[3], separator),
+                    index.name(buf, lastSlash(buf, columns[2 * named + 1], columns[2 * named + 2]) + 1,
+                        columns[2 * named + 2]),
+                    index.name(buf, separator + 1, columns[4]));
+            } else if (kind == 'M' && columns[0] >= 5) {
+                int separator = memberSeparator(in, columns[3], columns[4]);
+                index.putMethod(index.className(buf, columns[3], separator),
+                    index.name(buf, lastSlash(buf, columns[7], columns[8]) + 1, columns[8]),
+                    index.descriptor(buf, columns[5], columns[6]),
+                    index.name(buf, separator + 1, columns[4]));
+            } else if (kind != 'P') {
+                throw in.error("Malformed SRG entry");
+            }
+        }
+        return index;
+    }
+
+    static MappingIndex parseTsrg(LineScanner in) throws IOException {
+        MappingIndex index = new MappingIndex(false);
+        int[] columns = new int[16];
+        //Amount of names of every entry, 2 for TSRG v1.
+        int namespaces = 2;
+        int owner = -1;
+        boolean first = true;
+        while (in.next()) {
+            int depth = in.skip('\t', in.start) - in.start;
+            if (in.start == in.end || in.buf[in.start] == '#' || depth > 1) {
+                continue;
+            }
+
+            columns = in.split(' ', in.start + depth, columns);
+            char[] buf = in.buf;
+            if (first) {
+                first = false;
+                if (columns[2] - columns[1] == 5 && new String(buf, columns[1], 5).equals("tsrg2")) {
+                    namespaces = columns[0] - 1;
+                    continue;
+                }
+            }
+
+            int count = columns[0];
+            if (depth == 0) {
+                if (count < namespaces) {
+                    throw in.error("Missing class names");
+                }
+                owner = index.className(buf, columns[1], columns[2]);
+                int named = namespaces - 1;
+                index.putClass(index.className(buf, columns[2 * named + 1], columns[2 * named + 2]), owner);
+                continue;
+            }
+
+            if (owner < 0) {
+                throw in.error("Member outside of a class");
+            }
+            if (count < namespaces) {
+                throw in.error("Missing member names");
+            }
+            //Members with one column more than names have a descriptor.
+            boolean described = count > namespaces;
+            int named = count - 1;
+            int obfuscated = index.name(buf, columns[1], columns[2]);
+            int name = index.name(buf, columns[2 * named + 1], columns[2 * named + 2]);
+            if (described && buf[columns[3]] == '(') {
+                index.putMethod(owner, name, index.descriptor(buf, columns[3], columns[4]), obfuscated);
+            } else {
+                index.putField(owner, name, obfuscated);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of the slash between the owner and the name of
+     * the given member.
+     */
+    private static int memberSeparator(LineScanner in, int start, int end) throws IOException {
+        int separator = lastSlash(in.buf, start, end);
+        if (separator < start) {
+            throw in.error("Member without class");
+        }
+        return separator;
+    }
+
+    private static int lastSlash(char[] buf, int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (buf[i] == '/') {
+                return i;
+            }
+        }
+        return start - 1;
+    }
+}
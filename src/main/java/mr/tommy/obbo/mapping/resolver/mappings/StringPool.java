@@ -0,0 +1,152 @@
+package mr.tommy.obbo.mapping.resolver.mappings;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Pool of the strings of a mappings file, where every distinct string is
+ * stored once and referenced by its id.
+ *
+ * <p>
+ * Strings are interned straight from the characters of the line being
+ * parsed, so a string already in the pool is found without creating a
+ * new one. Hashes are the ones of {@link String#hashCode()}, so strings
+ * created at runtime are looked up without copying them either.
+ */
+final class StringPool {
+    //Strings of the pool, by their id.
+    private String[] strings = new String[1024];
+    private int size;
+    //Open addressed table of the ids of the strings plus one, 0 if empty.
+    private int[] table = new int[2048];
+
+    /**
+     * Interns the given range of characters.
+     *
+     * @param buf   characters to intern.
+     * @param start index of the first character, inclusive.
+     * @param end   index of the last character, exclusive.
+     * @param dots  whether to replace the dots by slashes, so class names
+     *              are always kept in their internal form.
+     *
+     * @return the id of the string.
+     */
+    int intern(char[] buf, int start, int end, boolean dots) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + map(buf[i], dots);
+        }
+
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        for (int id; (id = table[slot]) != 0; slot = (slot + 1) & mask) {
+            if (matches(strings[id - 1], buf, start, end, dots)) {
+                return id - 1;
+            }
+        }
+
+        String value = new String(buf, start, end - start);
+        return add(slot, dots ? value.replace('.', '/') : value);
+    }
+
+    /**
+     * Interns the given string.
+     *
+     * @param value to intern.
+     *
+     * @return the id of the string.
+     */
+    int intern(@NotNull String value) {
+        int mask = table.length - 1;
+        int slot = mix(value.hashCode()) & mask;
+        for (int id; (id = table[slot]) != 0; slot = (slot + 1) & mask) {
+            if (strings[id - 1].equals(value)) {
+                return id - 1;
+            }
+        }
+        return add(slot, value);
+    }
+
+    /**
+     * @param value to look up.
+     *
+     * @return the id of the given string, -1 if it's not in the pool.
+     */
+    int find(@NotNull String value) {
+        int mask = table.length - 1;
+        int slot = mix(value.hashCode()) & mask;
+        for (int id; (id = table[slot]) != 0; slot = (slot + 1) & mask) {
+            if (strings[id - 1].equals(value)) {
+                return id - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param id of the string.
+     *
+     * @return the string of the given id.
+     */
+    String get(int id) {
+        return strings[id];
+    }
+
+    /**
+     * @return the amount of strings in the pool.
+     */
+    int size() {
+        return size;
+    }
+
+    private int add(int slot, String value) {
+        if (size == strings.length) {
+            strings = Arrays.copyOf(strings, size * 2);
+        }
+        strings[size] = value;
+        table[slot] = ++size;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    private void rehash() {
+        int[] next = new int[table.length * 2];
+        int mask = next.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(strings[id].hashCode()) & mask;
+            while (next[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            next[slot] = id + 1;
+        }
+        table = next;
+    }
+
+    private static boolean matches(String value, char[] buf, int start, int end, boolean dots) {
+        if (value.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i - start) != map(buf[i], dots)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char map(char c, boolean dots) {
+        return dots && c == '.' ? '/' : c;
+    }
+
+    /**
+     * Spreads the bits of the hash, since the ones of similar strings
+     * only differ in the lowest bits.
+     */
+    static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,128 @@
+package mr.tommy.obbo.mapping.resolver.mappings;
+
+import java.io.IOException;
+
+/**
+ * Parser of the Tiny v1 and v2 files, detected by their header.
+ *
+ * <pre>
+ *     tiny	2	0	official	named
+ *     c	a/b	com/example/Named
+ *     	m	(I)V	b	value
+ *     	f	I	a	count
+ * </pre>
+ * The first namespace is the obfuscated one and the last namespace the
+ * named one, the descriptors use the names of the first namespace. Empty
+ * names fall back to the obfuscated ones. Parameters, local variables and
+ * comments are ignored, and so are the escapes of the
+ * {@code escaped-names} property.
+ */
+final class TinyParser {
+    private TinyParser() {
+    }
+
+    static MappingIndex parse(LineScanner in) throws IOException {
+        MappingIndex index = new MappingIndex(false);
+        if (!in.next()) {
+            return index;
+        }
+
+        int[] columns = in.split('\t', in.start, new int[16]);
+        String format = new String(in.buf, columns[1], columns[2] - columns[1]);
+        if (format.equals("tiny") && columns[0] >= 5) {
+            parseV2(in, index, columns[0] - 3);
+        } else if (format.equals("v1") && columns[0] >= 3) {
+            parseV1(in, index, columns[0] - 1);
+        } else {
+            throw in.error("Unknown Tiny header");
+        }
+        return index;
+    }
+
+    private static void parseV2(LineScanner in, MappingIndex index, int namespaces) throws IOException {
+        int[] columns = new int[16];
+        int owner = -1;
+        while (in.next()) {
+            int depth = in.skip('\t', in.start) - in.start;
+            if (depth > 1 || in.start == in.end) {
+                continue;
+            }
+
+            columns = in.split('\t', in.start + depth, columns);
+            char[] buf = in.buf;
+            char kind = columns[2] - columns[1] == 1 ? buf[columns[1]] : 0;
+            if (depth == 0) {
+                if (kind != 'c') {
+                    //Header properties.
+                    continue;
+                }
+                if (columns[0] < 1 + namespaces) {
+                    throw in.error("Missing class names");
+                }
+                owner = index.className(buf, columns[3], columns[4]);
+                int named = named(columns, namespaces, 1);
+                index.putClass(index.className(buf, columns[2 * named + 1], columns[2 * named + 2]), owner);
+            } else if (kind == 'm' || kind == 'f') {
+                if (owner < 0) {
+                    throw in.error("Member outside of a class");
+                }
+                if (columns[0] < 2 + namespaces) {
+                    throw in.error("Missing member names");
+                }
+                int obfuscated = index.name(buf, columns[5], columns[6]);
+                int named = named(columns, 1 + namespaces, 2);
+                int name = index.name(buf, columns[2 * named + 1], columns[2 * named + 2]);
+                if (kind == 'm') {
+                    index.putMethod(owner, name, index.descriptor(buf, columns[3], columns[4]), obfuscated);
+                } else {
+                    index.putField(owner, name, obfuscated);
+                }
+            }
+        }
+    }
+
+    private static void parseV1(LineScanner in, MappingIndex index, int namespaces) throws IOException {
+        int[] columns = new int[16];
+        while (in.next()) {
+            if (in.start == in.end || in.buf[in.start] == '#') {
+                continue;
+            }
+
+            columns = in.split('\t', in.start, columns);
+            char[] buf = in.buf;
+            int kindLength = columns[2] - columns[1];
+            if (kindLength == 5 && buf[columns[1]] == 'C') {
+                if (columns[0] < 1 + namespaces) {
+                    throw in.error("Missing class names");
+                }
+                int named = named(columns, namespaces, 1);
+                index.putClass(index.className(buf, columns[2 * named + 1], columns[2 * named + 2]),
+                    index.className(buf, columns[3], columns[4]));
+            } else if (kindLength == 6 && buf[columns[1]] == 'M' || kindLength == 5 && buf[columns[1]] == 'F') {
+                if (columns[0] < 3 + namespaces) {
+                    throw in.error("Missing member names");
+                }
+                int owner = index.className(buf, columns[3], columns[4]);
+                int obfuscated = index.name(buf, columns[7], columns[8]);
+                int named = named(columns, 2 + namespaces, 3);
+                int name = index.name(buf, columns[2 * named + 1], columns[2 * named + 2]);
+                if (buf[columns[1]] == 'M') {
+                    index.putMethod(owner, name, index.descriptor(buf, columns[5], columns[6]), obfuscated);
+                } else {
+                    index.putField(owner, name, obfuscated);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param last       column of the last namespace.
+     * @param obfuscated column of the first namespace.
+     *
+     * @return the column of the named name, the obfuscated one if the
+     * named one is empty.
+     */
+    private static int named(int[] columns, int last, int obfuscated) {
+        return columns[2 * last + 2] > columns[2 * last + 1] ? last : obfuscated;
+    }
+}
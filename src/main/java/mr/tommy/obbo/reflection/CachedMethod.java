@@ -5,10 +5,9 @@ import org.jetbrains.annotations.Nullable;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
-import java.util.WeakHashMap;
 
 /**
  * Instance which is going to be used to wrap the method in order
@@ -18,10 +17,9 @@ public class CachedMethod {
     //Encapsulated method from where to access the method
     // metadata instead of calling it separately every time
     private final Method method;
-    //Cache maps
-    private boolean cachedAnnotations = false;
-    private final Map<Class<? extends Annotation>, Annotation> annotationMap =
-        Collections.synchronizedMap(new WeakHashMap<>());
+    //Cache maps, built the first time an annotation is requested
+    // and never modified afterwards.
+    private volatile Map<Class<? extends Annotation>, Annotation> annotationMap;
 
     /**
      * Creates a new cached method with the given method.
@@ -43,18 +41,22 @@ public class CachedMethod {
     }
 
     /**
-     * Ensures the annotations are loaded properly before continue
+     * Ensures the annotations are loaded properly before continue.
+     * Racing threads would just build the same map, so there is no
+     * need to lock while building it.
+     *
+     * @return the annotations of the method.
      */
-    private void ensureCachedAnnotations() {
-        synchronized (this) {
-            if (cachedAnnotations) {
-                return;
-            }
+    private Map<Class<? extends Annotation>, Annotation> ensureCachedAnnotations() {
+        Map<Class<? extends Annotation>, Annotation> annotations = annotationMap;
+        if (annotations == null) {
+            annotations = new HashMap<>();
             for (Annotation annotation : method.getDeclaredAnnotations()) {
-                annotationMap.put(annotation.annotationType(), annotation);
+                annotations.put(annotation.annotationType(), annotation);
             }
-            cachedAnnotations = true;
+            annotationMap = annotations;
         }
+        return annotations;
     }
 
     /**
@@ -68,8 +70,7 @@ public class CachedMethod {
      */
     @Nullable
     public <A extends Annotation> A getAnnotation(Class<A> cls) {
-        ensureCachedAnnotations();
-        Annotation ann = annotationMap.get(cls);
+        Annotation ann = ensureCachedAnnotations().get(cls);
         if (ann == null) return null;
         return cls.cast(ann);
     }
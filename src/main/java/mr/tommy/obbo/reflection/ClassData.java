@@ -1,16 +1,25 @@
 package mr.tommy.obbo.reflection;
 
+import mr.tommy.obbo.util.Cache;
+import mr.tommy.obbo.util.CacheStats;
 import mr.tommy.obbo.util.Utils;
+import mr.tommy.obbo.util.WeakIdentityMap;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.annotation.Annotation;
+import java.lang.ref.SoftReference;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
 
 /**
  * Holds the Data of a Class and caches in here all their methods
@@ -18,10 +27,47 @@ import java.util.WeakHashMap;
  * expensive operation.
  */
 public class ClassData {
+    //--- Cache policy ---
+    //Maximum amount of entries of every cache, classes by class loader
+    // and members by class. Over them, the least recently used entries
+    // are evicted.
+    private static final int MAX_CLASSES = 4096;
+    private static final int MAX_FIELDS = 256;
+    private static final int MAX_METHODS = 512;
+    private static final int MAX_CONSTRUCTORS = 64;
+    //Statistics of every kind of cache, aggregated for all the class
+    // loaders and classes.
+    private static final CacheStats.Counter classStats = new CacheStats.Counter();
+    private static final CacheStats.Counter fieldStats = new CacheStats.Counter();
+    private static final CacheStats.Counter methodStats = new CacheStats.Counter();
+    private static final CacheStats.Counter constructorStats = new CacheStats.Counter();
+    //Time in nanoseconds a failed lookup is remembered for before
+    // trying it again, 0 to remember it forever. Failed lookups were
+    // always tried again before they were cached, so by default they
+    // are only remembered for a while.
+    private static final long DEFAULT_MISS_TTL = TimeUnit.SECONDS.toNanos(30);
+    private static volatile long missTtl = DEFAULT_MISS_TTL;
+    //Amount of class and member lookups that failed.
+    private static final LongAdder failedLookups = new LongAdder();
+
     //Global cache holding the class data of all the classes having
-    // them cached and easily retrieved by the `of` methods.
-    private static final Map<String, Class<?>> classCache = Collections.synchronizedMap(new HashMap<>());
-    private static final Map<Class<?>, ClassData> data = Collections.synchronizedMap(new HashMap<>());
+    // them cached and easily retrieved by the `of` methods. The class
+    // data is stored on the class itself through the ClassValue, so
+    // reads never lock and it's released along with the class.
+    //
+    //Classes resolved by name are segmented by the class loader used to
+    // resolve them. The loaders are weakly referenced and so are the
+    // classes (a class is kept alive by its own loader anyway), so
+    // unloading a loader releases its whole segment.
+    private static final WeakIdentityMap<ClassLoader, Cache<String, Class<?>>> classCache = new WeakIdentityMap<>();
+    //Segment of the bootstrap class loader, which is never unloaded.
+    private static final Cache<String, Class<?>> bootstrapClasses = classSegment();
+    private static final ClassValue<ClassData> data = new ClassValue<>() {
+        @Override
+        protected ClassData computeValue(Class<?> type) {
+            return new ClassData(type);
+        }
+    };
 
     //--- Instance cache ---
     //This is the cache used when retrieving the fields, methods,
@@ -33,12 +79,31 @@ public class ClassData {
     // while the previous member is already stored here, there won't
     // be any way to check this change and the ClassData will just
     // continue using wrong information.
-    private final Map<String, Field> fieldMap = Collections.synchronizedMap(new WeakHashMap<>());
-    private final Map<Class<? extends Annotation>, Annotation> annotationMap =
-            Collections.synchronizedMap(new WeakHashMap<>());
-    private final Map<MethodDescriptor, CachedMethod> methodMap = Collections.synchronizedMap(new WeakHashMap<>());
-    private final Map<MethodDescriptor, Constructor<?>> constructorMap =
-            Collections.synchronizedMap(new WeakHashMap<>());
+    //
+    //Members that were not found are remembered as misses, so they
+    // are not looked up again until the miss expires.
+    private final Cache<String, Field> fieldMap = Cache.builder()
+        .maximumSize(MAX_FIELDS)
+        .missTtl(() -> missTtl)
+        .recordStats(fieldStats)
+        .build();
+    private volatile Map<Class<? extends Annotation>, Annotation> annotationMap;
+    //Index of all the members of the class hierarchy, the caches are
+    // loaded from it instead of scanning the class again and again. It
+    // holds every member of the hierarchy, so it's softly referenced
+    // and built again if the memory was needed, while the bounded caches
+    // keep the members actually used.
+    private volatile SoftReference<MemberIndex> memberIndex;
+    private final Cache<MethodDescriptor, CachedMethod> methodMap = Cache.builder()
+        .maximumSize(MAX_METHODS)
+        .missTtl(() -> missTtl)
+        .recordStats(methodStats)
+        .build();
+    private final Cache<MethodDescriptor, Constructor<?>> constructorMap = Cache.builder()
+        .maximumSize(MAX_CONSTRUCTORS)
+        .missTtl(() -> missTtl)
+        .recordStats(constructorStats)
+        .build();
 
     //--- Instance fields ---
     private final Class<?> cls;
@@ -48,7 +113,7 @@ public class ClassData {
      * Constructor of the class data, private because this is only
      * meant to be retrieved from the already cached class data or
      * created if it doesn't exist or created from the {@link #data}
-     * cache as well.
+     * class value as well.
      *
      * @param cls of this Class Data.
      */
@@ -74,13 +139,12 @@ public class ClassData {
      * @return the class data of the given class.
      */
     public static ClassData of(Class<?> cls) {
-        synchronized (data) {
-            return Utils.getOrPut(data, cls, () -> new ClassData(cls));
-        }
+        return data.get(cls);
     }
 
     /**
-     * Gets the class data of the given class name.
+     * Gets the class data of the given class name, loaded from the
+     * class loader of this library.
      *
      * @param className used to retrieve the class data from the cache.
      *                  If none, then the {@link Class#forName(String)} is
@@ -90,52 +154,50 @@ public class ClassData {
      * @return the Class Data of the given className.
      */
     public static ClassData of(String className) {
-        synchronized (classCache) {
-            Class<?> cls = Utils.getOrPut(classCache, className, () -> {
-                try {
-                    return Class.forName(className);
-                } catch (ClassNotFoundException e) {
-                    e.printStackTrace();
-                    return null;
-                }
-            });
-
-            if (cls == null) {
-                return null;
-            }
-
-            return of(cls);
-        }
+        return of(className, ClassData.class.getClassLoader());
     }
 
     /**
      * Gets the class data of the given class name.
      *
-     * @param className used to retrieve the class data from the cache.
-     *                  If none, then the {@link Class#forName(String)} is
-     *                  used to retrieve the Class from and store it in
+     * @param className used to retrieve the class data from the cache
+     *                  segment of the given loader. If none, then the
+     *                  {@link Class#forName(String, boolean, ClassLoader)}
+     *                  is used to retrieve the Class from and store it in
      *                  the cache.
-     * @param loader the {@link ClassLoader} of the class to load this from.
+     * @param loader the {@link ClassLoader} of the class to load this from,
+     *               null for the bootstrap class loader.
      *
      * @return the Class Data of the given className.
      */
     public static ClassData of(String className, ClassLoader loader) {
-        synchronized (classCache) {
-            Class<?> cls = Utils.getOrPut(classCache, className, () -> {
-                try {
-                    return Class.forName(className, true, loader);
-                } catch (ClassNotFoundException e) {
-                    e.printStackTrace();
-                    return null;
-                }
-            });
+        Cache<String, Class<?>> segment = loader == null ? bootstrapClasses
+            : classCache.computeIfAbsent(loader, l -> classSegment());
 
-            if (cls == null) {
-                return null;
+        Class<?> cls = segment.get(className, name -> {
+            try {
+                return Class.forName(name, true, loader);
+            } catch (ClassNotFoundException e) {
+                return miss("class", name, loader);
             }
+        });
+        return cls == null ? null : of(cls);
+    }
 
-            return of(cls);
-        }
+    /**
+     * Creates the cache segment of the classes resolved by a class loader.
+     * The classes are weakly referenced since they are kept alive by their
+     * loader anyway.
+     *
+     * @return a new class cache segment.
+     */
+    private static Cache<String, Class<?>> classSegment() {
+        return Cache.builder()
+            .maximumSize(MAX_CLASSES)
+            .weakValues()
+            .missTtl(() -> missTtl)
+            .recordStats(classStats)
+            .build();
     }
 
     /**
@@ -154,38 +216,29 @@ public class ClassData {
      * Gets the field at that name. If the field is already cached
      * in the {@link #fieldMap} then the field there will be
      * retrieved, if not then the field is going to be retrieved
-     * using reflection and saved into the {@link #fieldMap}.
+     * from the {@link #index() member index} and saved into the
+     * {@link #fieldMap}.
      *
      * @param name of the field to be retrieved from the Class Data.
      *
      * @return the field at that name.
      */
     public Field field(String name) {
-        synchronized (fieldMap) {
-            return Utils.getOrPut(fieldMap, name, () -> {
-                try {
-                    Field field;
-                    try {
-                        field = cls.getField(name);
-                    } catch (NoSuchFieldException e) {
-                        field = cls.getDeclaredField(name);
-                    }
-                    field.setAccessible(true);
-                    return field;
-                } catch (NoSuchFieldException e) {
-                    e.printStackTrace();
-                    return null;
-                }
-            });
-        }
+        return fieldMap.get(name, n -> {
+            Field field = index().field(n);
+            if (field == null) {
+                return miss("field", n, cls);
+            }
+            field.trySetAccessible();
+            return field;
+        });
     }
 
     /**
-     * Gets the annotation class present in the class. If the annotation
-     * is already cached in the {@link #annotationMap} the annotation
-     * there will be retrieved, if not then the annotation is going to
-     * be retrieved using reflection and saved into the
-     * {@link #annotationMap}.
+     * Gets the annotation class present in the class. The first time an
+     * annotation is requested all the declared annotations of the class
+     * are retrieved using reflection and stored in the
+     * {@link #annotationMap}, which is never modified afterwards.
      *
      * @param cls of the annotation that is going to be retrieved
      *            from the class.
@@ -193,15 +246,17 @@ public class ClassData {
      * @return the field at that name.
      */
     public <A extends Annotation> A annotation(@NotNull Class<A> cls) {
-        synchronized (annotationMap) {
-            return cls.cast(Utils.getOrPut(annotationMap, cls, () -> {
-                try {
-                    return this.cls.getDeclaredAnnotation(cls);
-                } catch (Exception ignored) {
-                    return null;
-                }
-            }));
+        Map<Class<? extends Annotation>, Annotation> annotations = annotationMap;
+        if (annotations == null) {
+            //Racing threads would just build the same map, so there is
+            // no need to lock while building it.
+            annotations = new HashMap<>();
+            for (Annotation annotation : this.cls.getDeclaredAnnotations()) {
+                annotations.put(annotation.annotationType(), annotation);
+            }
+            annotationMap = annotations;
         }
+        return cls.cast(annotations.get(cls));
     }
 
     /**
@@ -212,7 +267,9 @@ public class ClassData {
      * <p>
      * If the method is already cached in the {@link #methodMap} then
      * the method there is going to be returned, if not then is going to
-     * be retrieved from reflection then stored on the {@link #methodMap}
+     * be retrieved from the {@link #index() member index} then stored on
+     * the {@link #methodMap}. Methods inherited from the superclasses are
+     * found as well, even if they are not public.
      *
      * @param descriptor of the method which is going to be used to
      *                   retrieve the method instance using the information
@@ -222,23 +279,40 @@ public class ClassData {
      * descriptor
      */
     public CachedMethod method(MethodDescriptor descriptor) {
-        synchronized (methodMap) {
-            return Utils.getOrPut(methodMap, descriptor, () -> {
-                Method method;
-                try {
-                    method = cls.getMethod(descriptor.getName(), descriptor.getParamTypes());
-                } catch (NoSuchMethodException e) {
-                    try {
-                        method = cls.getDeclaredMethod(descriptor.getName(), descriptor.getParamTypes());
-                    } catch (NoSuchMethodException ex) {
-                        ex.printStackTrace();
-                        return null;
-                    }
-                }
-                method.setAccessible(true);
-                return new CachedMethod(method);
-            });
-        }
+        return methodMap.get(descriptor, d -> {
+            Method method = index().method(d);
+            if (method == null) {
+                return miss("method", d, cls);
+            }
+            method.trySetAccessible();
+            return new CachedMethod(method);
+        });
+    }
+
+    /**
+     * Gets all the overloads of the given method name declared in this
+     * class or inherited from its hierarchy, most derived first.
+     *
+     * @param name of the methods.
+     *
+     * @return the methods with the given name, empty if none.
+     */
+    @NotNull
+    public List<Method> methods(String name) {
+        return index().overloads(name);
+    }
+
+    /**
+     * Gets all the methods with the given signature declared in this
+     * class or inherited from its hierarchy, whatever their name is.
+     *
+     * @param type return and parameter types of the methods.
+     *
+     * @return the methods with the given signature, empty if none.
+     */
+    @NotNull
+    public List<Method> methods(MethodType type) {
+        return index().signature(type);
     }
 
     /**
@@ -249,8 +323,8 @@ public class ClassData {
      * <p>
      * If the constructor is already cached in the {@link #constructorMap}
      * then the constructor there is going to be used from it, if not then
-     * is going to be retrieved from reflection then stored on the
-     * {@link #constructorMap}.
+     * is going to be retrieved from the {@link #index() member index} then
+     * stored on the {@link #constructorMap}.
      *
      * @param paramTypes of the constructor which is going to be used to
      *                   retrieve the method instance using the information
@@ -260,25 +334,34 @@ public class ClassData {
      * descriptor
      */
     public Constructor<?> constructor(Class<?>... paramTypes) {
-        synchronized (constructorMap) {
-            return Utils.getOrPut(constructorMap, MethodDescriptor.builder("<init>")
-                    .parameterTypes(paramTypes)
-                    .build(), () -> {
-                try {
-                    Constructor<?> constructor;
-                    try {
-                        constructor = cls.getConstructor(paramTypes);
-                    } catch (NoSuchMethodException e) {
-                        constructor = cls.getDeclaredConstructor(paramTypes);
-                    }
-                    constructor.setAccessible(true);
-                    return constructor;
-                } catch (NoSuchMethodException e) {
-                    e.printStackTrace();
-                    return null;
-                }
-            });
+        return constructorMap.get(MethodDescriptor.builder("<init>")
+                .parameterTypes(paramTypes)
+                .build(), d -> {
+            Constructor<?> constructor = index().constructor(d);
+            if (constructor == null) {
+                return miss("constructor", d, cls);
+            }
+            constructor.trySetAccessible();
+            return constructor;
+        });
+    }
+
+    /**
+     * Gets the member index of this class, building it the first time
+     * it's requested or once it was collected. Racing threads would just
+     * build the same index, so there is no need to lock while building it.
+     *
+     * @return the member index of this class.
+     */
+    @NotNull
+    MemberIndex index() {
+        SoftReference<MemberIndex> reference = memberIndex;
+        MemberIndex index = reference == null ? null : reference.get();
+        if (index == null) {
+            index = new MemberIndex(cls);
+            memberIndex = new SoftReference<>(index);
         }
+        return index;
     }
 
     /**
@@ -289,4 +372,70 @@ public class ClassData {
     public String getName() {
         return name;
     }
+
+    /**
+     * Reports a failed lookup through the {@link Utils#logger() logger} and
+     * the {@link #getFailedLookups() failed lookups counter}.
+     *
+     * @param kind  of the lookup which failed.
+     * @param key   looked up.
+     * @param owner where the lookup was done.
+     * @param <T> type of the member looked up.
+     *
+     * @return null, so the cache stores the miss.
+     */
+    @Nullable
+    private static <T> T miss(String kind, Object key, Object owner) {
+        failedLookups.increment();
+        Utils.logger().log(Level.FINE, "{0} {1} not found in {2}", new Object[]{kind, key, owner});
+        return null;
+    }
+
+    /**
+     * Sets how long a failed class or member lookup is remembered for
+     * before trying it again. By default, failed lookups are remembered
+     * for 30 seconds, so classes and members which show up later on, like
+     * the ones of a plugin loaded afterwards, are eventually found.
+     *
+     * @param duration to remember the failed lookups for, 0 to remember
+     *                 them forever.
+     * @param unit     of the duration.
+     */
+    public static void setMissTtl(long duration, @NotNull TimeUnit unit) {
+        missTtl = unit.toNanos(duration);
+    }
+
+    /**
+     * @param unit of the returned duration.
+     *
+     * @return how long a failed lookup is remembered for, 0 if forever.
+     */
+    public static long getMissTtl(@NotNull TimeUnit unit) {
+        return unit.convert(missTtl, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the amount of class and member lookups that have failed.
+     * Lookups answered by the negative cache are not counted.
+     */
+    public static long getFailedLookups() {
+        return failedLookups.sum();
+    }
+
+    /**
+     * Gets the statistics of the caches of all the class data, by the
+     * kind of cache: {@code classes}, {@code fields}, {@code methods} and
+     * {@code constructors}.
+     *
+     * @return the statistics of every kind of cache.
+     */
+    @NotNull
+    public static Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("classes", classStats.snapshot());
+        stats.put("fields", fieldStats.snapshot());
+        stats.put("methods", methodStats.snapshot());
+        stats.put("constructors", constructorStats.snapshot());
+        return stats;
+    }
 }
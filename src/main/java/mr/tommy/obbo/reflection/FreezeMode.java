@@ -0,0 +1,18 @@
+package mr.tommy.obbo.reflection;
+
+/**
+ * What a {@link Linker#freeze(FreezeMode) frozen} linker does when asked
+ * to resolve something it didn't resolve before being frozen.
+ */
+public enum FreezeMode {
+    /**
+     * Throws an {@link IllegalStateException}, for applications where any
+     * resolution after the warm-up is a bug.
+     */
+    FAIL_FAST,
+    /**
+     * Resolves it every time it's requested without caching it, so the
+     * frozen tables are never modified.
+     */
+    SLOW_PATH
+}
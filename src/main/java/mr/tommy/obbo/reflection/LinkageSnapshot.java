@@ -0,0 +1,231 @@
+package mr.tommy.obbo.reflection;
+
+import mr.tommy.obbo.util.Utils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Linkages of the bindings of a {@link Linker} saved to disk, so a later
+ * run can link them again without resolving their members.
+ *
+ * <p>
+ * Every entry keeps the fingerprints of the dependency keys its member
+ * was resolved from, as given by
+ * {@link mr.tommy.obbo.mapping.Resolver#fingerprint(String)}, and the
+ * stamps of the files the classes walked from the receiver up to the
+ * member were loaded from. An entry is only restored while all of them
+ * are still the same, the rest are resolved again as usual on their
+ * first invocation.
+ *
+ * <p>
+ * Snapshots are written and read with {@link Utils#gson()}.
+ */
+final class LinkageSnapshot {
+    //Version of the format, snapshots of other versions are ignored.
+    static final int VERSION = 1;
+
+    int version = VERSION;
+    List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Linkage of a method of a wrapping interface for a single receiver.
+     */
+    static final class Entry {
+        //The wrapping interface, the name of its method and the
+        // descriptor of its parameters.
+        String wrappingInterface;
+        String method;
+        String parameters;
+        //The receiver class, the class declaring the member, its name and
+        // its descriptor, the method type for methods and the type for
+        // fields.
+        String receiver;
+        String owner;
+        String member;
+        String descriptor;
+        boolean field;
+        Resolution.Strategy strategy;
+        //Fingerprints of the dependency keys of the resolution.
+        Map<String, String> keys;
+        //Stamps of the files the classes from the receiver up to the owner,
+        // their interfaces included, were loaded from.
+        Map<String, String> stamps;
+
+        /**
+         * Creates the entry of the given resolution.
+         *
+         * @param resolution   of the linkage.
+         * @param fingerprints of the dependency keys of the resolution.
+         *
+         * @return the entry of the resolution, null if the files of the
+         * classes of its hierarchy can't be stamped.
+         */
+        @Nullable
+        static Entry of(@NotNull Resolution resolution, @NotNull Map<String, String> fingerprints) {
+            Method method = resolution.getMethod();
+            Member member = resolution.getMember();
+            Entry entry = new Entry();
+            entry.wrappingInterface = method.getDeclaringClass().getName();
+            entry.method = method.getName();
+            entry.parameters = Utils.descriptor(method.getParameterTypes());
+            entry.receiver = resolution.getReceiver().getName();
+            entry.owner = member.getDeclaringClass().getName();
+            entry.member = member.getName();
+            entry.field = member instanceof Field;
+            entry.descriptor = descriptor(member);
+            entry.strategy = resolution.getStrategy();
+            entry.keys = fingerprints;
+            entry.stamps = stamps(hierarchy(resolution.getReceiver(), member.getDeclaringClass()));
+            return entry.stamps == null ? null : entry;
+        }
+
+        /**
+         * @return whether the classes of the hierarchy of this entry were
+         * loaded from the same files as when it was saved, so none of them
+         * gained a member overriding the saved one.
+         */
+        boolean sameStamps(@NotNull Class<?> receiver, @NotNull Class<?> owner) {
+            Map<String, String> current = stamps(hierarchy(receiver, owner));
+            return current != null && current.equals(stamps);
+        }
+
+        /**
+         * @param wrappingInterface of this entry.
+         *
+         * @return the method of the wrapping interface, null if it doesn't
+         * have it anymore.
+         */
+        @Nullable
+        Method findMethod(@NotNull Class<?> wrappingInterface) {
+            for (Method m : wrappingInterface.getMethods()) {
+                if (m.getName().equals(method) && Utils.descriptor(m.getParameterTypes()).equals(parameters)) {
+                    return m;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @param owner class declaring the member.
+         *
+         * @return the member of this entry, null if the class doesn't
+         * declare it anymore.
+         */
+        @Nullable
+        Member findMember(@NotNull Class<?> owner) {
+            ClassData data = ClassData.of(owner);
+            if (field) {
+                Field f = data.field(member);
+                return f != null && f.getDeclaringClass() == owner && descriptor(f).equals(descriptor) ? f : null;
+            }
+
+            for (Method m : data.methods(member)) {
+                if (m.getDeclaringClass() == owner && descriptor(m).equals(descriptor)) {
+                    m.trySetAccessible();
+                    return m;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static String descriptor(Member member) {
+        if (member instanceof Field) {
+            return Utils.descriptor(((Field) member).getType());
+        }
+        Method method = (Method) member;
+        return MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+    }
+
+    /**
+     * Collects the classes walked to resolve a member of the given owner for
+     * the given receiver: the superclasses from the receiver up to the
+     * owner, or all of them if the owner is an interface, along with all
+     * their interfaces. A member added to any of them may hide the owner's.
+     */
+    private static Set<Class<?>> hierarchy(Class<?> receiver, Class<?> owner) {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+        for (Class<?> cls = receiver; cls != null; cls = cls.getSuperclass()) {
+            classes.add(cls);
+            interfaces.addAll(Arrays.asList(cls.getInterfaces()));
+            if (cls == owner) break;
+        }
+        while (!interfaces.isEmpty()) {
+            Class<?> cls = interfaces.poll();
+            if (classes.add(cls)) {
+                interfaces.addAll(Arrays.asList(cls.getInterfaces()));
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * @return the stamps of the given classes keyed by their names, null if
+     * any of them can't be stamped.
+     */
+    @Nullable
+    private static Map<String, String> stamps(Set<Class<?>> classes) {
+        Map<String, String> stamps = new HashMap<>();
+        for (Class<?> cls : classes) {
+            String stamp = stamp(cls);
+            if (stamp == null) {
+                return null;
+            }
+            stamps.put(cls.getName(), stamp);
+        }
+        return stamps;
+    }
+
+    /**
+     * Gets the stamp of the file the given class was loaded from: the size
+     * and the last modification time of its jar, or of its class file if
+     * it was loaded from a directory. Checking a stamp is much cheaper than
+     * hashing the file, and every build of the file changes it.
+     *
+     * @param cls to stamp.
+     *
+     * @return the stamp of the class, empty if the class has no code
+     * source, like the classes of the JDK, or null if its file can't be
+     * read.
+     */
+    @Nullable
+    static String stamp(@NotNull Class<?> cls) {
+        CodeSource source = cls.getProtectionDomain().getCodeSource();
+        URL location = source == null ? null : source.getLocation();
+        if (location == null) {
+            return "";
+        }
+
+        try {
+            Path path = Paths.get(location.toURI());
+            if (Files.isDirectory(path)) {
+                path = path.resolve(cls.getName().replace('.', '/') + ".class");
+            }
+            return Files.size(path) + "@" + Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return null;
+        }
+    }
+}
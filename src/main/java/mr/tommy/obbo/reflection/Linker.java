@@ -0,0 +1,570 @@
+package mr.tommy.obbo.reflection;
+
+import com.google.gson.JsonParseException;
+import mr.tommy.obbo.entity.FieldProxy;
+import mr.tommy.obbo.entity.Proxy;
+import mr.tommy.obbo.mapping.Resolver;
+import mr.tommy.obbo.util.Utils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+
+/**
+ * Links the methods of the wrapping interfaces to the actual members
+ * of the classes they are proxying.
+ *
+ * <p>
+ * Every {@link mr.tommy.obbo.Obbo} instance owns one linker, so all the
+ * {@link ObboInvocationHandler invocation handlers} it creates share the
+ * same {@link MethodBinding bindings} instead of resolving the members
+ * again for every wrapped instance.
+ *
+ * <p>
+ * The linker keeps track of the variables every binding was resolved
+ * from, and listens to the {@link Resolver#invalidate(String) invalidated}
+ * variables of its resolver to unlink only the bindings depending on them.
+ * The same dependencies let the linkages be
+ * {@link #saveSnapshot(Path) saved} and {@link #loadSnapshot(Path) loaded}
+ * on a later run without resolving them again.
+ *
+ * @see MethodBinding
+ */
+public class Linker {
+    //The resolver used to resolve the members of the bindings.
+    private final Resolver resolver;
+    //Bindings of every wrapping interface, keyed by the interface
+    // class so the bindings are released with the interface.
+    private final ClassValue<Map<Method, MethodBinding>> bindings = new ClassValue<>() {
+        @Override
+        protected Map<Method, MethodBinding> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    //Whether the members that can't be resolved by name are looked up
+    // by their signature.
+    private volatile boolean signatureFallback;
+    //Bindings depending on every variable, weakly referenced so they are
+    // released along with their wrapping interface.
+    private final Map<String, Set<MethodBinding>> dependents = new ConcurrentHashMap<>();
+    //Wrapping interfaces with bindings, needed to freeze them. Weakly
+    // referenced, like the bindings.
+    private final Set<Class<?>> interfaces = Collections.synchronizedSet(
+        Collections.newSetFromMap(new WeakHashMap<>()));
+    //Immutable copies of the bindings of every wrapping interface, taken
+    // once frozen and kept by the interface class like the bindings.
+    private final ClassValue<Map<Method, MethodBinding>> frozenBindings = new ClassValue<>() {
+        @Override
+        protected Map<Method, MethodBinding> computeValue(Class<?> type) {
+            return Map.copyOf(bindings.get(type));
+        }
+    };
+    //Mode the linker was frozen with, null until frozen.
+    private volatile FreezeMode freezeMode;
+    //Bindings of the methods not bound before freezing, used in the slow
+    // path mode and keyed by the interface class like the bindings.
+    private final ClassValue<Map<Method, MethodBinding>> slowBindings = new ClassValue<>() {
+        @Override
+        protected Map<Method, MethodBinding> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    //Read locked while creating a binding and write locked while freezing,
+    // so no binding is created while the snapshot is taken and left out.
+    private final ReadWriteLock freezeLock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates a new linker which is going to resolve the members
+     * of its bindings using the given resolver.
+     *
+     * @param resolver used to resolve the members of the bindings.
+     */
+    public Linker(@NotNull Resolver resolver) {
+        this.resolver = resolver;
+        resolver.addInvalidationListener(this::invalidate);
+    }
+
+    /**
+     * Gets the binding of the given method of the wrapping interface,
+     * creating it if this is the first time it is requested.
+     *
+     * @param wrappingInterface declaring the proxy annotation.
+     * @param method            of the wrapping interface being invoked.
+     *
+     * @return the binding of the given method.
+     */
+    @NotNull
+    public MethodBinding binding(@NotNull Class<?> wrappingInterface, @NotNull Method method) {
+        FreezeMode mode = freezeMode;
+        if (mode != null) {
+            return frozenBinding(mode, wrappingInterface, method);
+        }
+
+        Map<Method, MethodBinding> map = bindings.get(wrappingInterface);
+        MethodBinding binding = map.get(method);
+        if (binding != null) {
+            return binding;
+        }
+
+        Lock lock = freezeLock.readLock();
+        lock.lock();
+        try {
+            //Frozen while waiting for the lock.
+            mode = freezeMode;
+            if (mode != null) {
+                return frozenBinding(mode, wrappingInterface, method);
+            }
+            interfaces.add(wrappingInterface);
+            return map.computeIfAbsent(method, m -> new MethodBinding(this, wrappingInterface, m));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private MethodBinding frozenBinding(FreezeMode mode, Class<?> wrappingInterface, Method method) {
+        MethodBinding binding = frozenBindings.get(wrappingInterface).get(method);
+        if (binding != null) {
+            return binding;
+        }
+
+        if (mode == FreezeMode.FAIL_FAST) {
+            throw new IllegalStateException(String.format("Linker is frozen and %s.%s was never bound",
+                wrappingInterface.getSimpleName(), method.getName()));
+        }
+        //Slow path, the binding resolves its member on every invocation.
+        return slowBindings.get(wrappingInterface).computeIfAbsent(method, m -> {
+            MethodBinding slow = new MethodBinding(this, wrappingInterface, m);
+            slow.freeze(FreezeMode.SLOW_PATH);
+            return slow;
+        });
+    }
+
+    /**
+     * Freezes this linker once the application is warmed up. The bindings
+     * created so far are compacted into immutable maps, kept by their
+     * wrapping interfaces, which are read without any lock, and every
+     * binding stops linking new receiver classes. From then on anything not
+     * bound or linked before freezing is handled as the given mode says.
+     *
+     * <p>
+     * Frozen bindings can still be {@link #invalidate(String) invalidated},
+     * the receivers they had linked are linked again.
+     *
+     * @param mode what to do with the methods and receivers not linked
+     *             before freezing.
+     */
+    public synchronized void freeze(@NotNull FreezeMode mode) {
+        Lock lock = freezeLock.writeLock();
+        lock.lock();
+        try {
+            synchronized (interfaces) {
+                for (Class<?> wrappingInterface : interfaces) {
+                    bindings.get(wrappingInterface).values().forEach(binding -> binding.freeze(mode));
+                    //No binding is created from now on, so the copy is final.
+                    frozenBindings.get(wrappingInterface);
+                }
+            }
+            freezeMode = mode;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Links every method and field proxy of the given wrapping interfaces
+     * now, instead of on their first invocation, so the first calls don't
+     * pay for the lookups and the mapping errors show up right away. The
+     * wrapping interfaces returned by or taken as parameters by their
+     * methods are prewarmed as well, transitively. Every member is linked
+     * for the proxied class of its interface, concurrently in the given
+     * pool.
+     *
+     * @param pool       where to link the members.
+     * @param interfaces wrapping interfaces to prewarm.
+     *
+     * @return the report of the members linked and the ones which failed.
+     *
+     * @throws IllegalStateException if the linker is {@link #freeze(FreezeMode) frozen}.
+     */
+    @NotNull
+    public PrewarmReport prewarm(@NotNull ForkJoinPool pool, @NotNull Class<?>... interfaces) {
+        if (isFrozen()) {
+            throw new IllegalStateException("Linker is frozen, prewarm it before freezing");
+        }
+
+        long start = System.nanoTime();
+        Set<Class<?>> reachable = reachable(interfaces);
+        List<ForkJoinTask<List<PrewarmReport.Entry>>> tasks = new ArrayList<>();
+        for (Class<?> wrappingInterface : reachable) {
+            tasks.add(ForkJoinTask.adapt(() -> prewarm(wrappingInterface)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        List<PrewarmReport.Entry> entries = new ArrayList<>();
+        for (ForkJoinTask<List<PrewarmReport.Entry>> task : tasks) {
+            entries.addAll(task.join());
+        }
+        return new PrewarmReport(reachable, entries, System.nanoTime() - start);
+    }
+
+    /**
+     * Collects the given wrapping interfaces and the ones reachable from
+     * the return and parameter types of their methods.
+     */
+    private static Set<Class<?>> reachable(Class<?>[] interfaces) {
+        Set<Class<?>> reachable = new LinkedHashSet<>();
+        Deque<Class<?>> queue = new ArrayDeque<>(Arrays.asList(interfaces));
+        while (!queue.isEmpty()) {
+            Class<?> wrappingInterface = queue.poll();
+            if (!reachable.add(wrappingInterface)) continue;
+            for (Method method : bindable(wrappingInterface)) {
+                addIfWrapping(method.getReturnType(), queue);
+                for (Class<?> param : method.getParameterTypes()) {
+                    addIfWrapping(param, queue);
+                }
+            }
+        }
+        return reachable;
+    }
+
+    private static void addIfWrapping(Class<?> type, Deque<Class<?>> queue) {
+        if (type.isInterface() && ClassData.of(type).annotation(Proxy.class) != null) {
+            queue.add(type);
+        }
+    }
+
+    /**
+     * @return the methods of the given interface invoked through bindings.
+     */
+    private static List<Method> bindable(Class<?> wrappingInterface) {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : wrappingInterface.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers()) && !method.isSynthetic()) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * Resolves the proxied class of the given interface and then links all
+     * its members in parallel.
+     */
+    private List<PrewarmReport.Entry> prewarm(Class<?> wrappingInterface) {
+        long start = System.nanoTime();
+        Proxy proxy = ClassData.of(wrappingInterface).annotation(Proxy.class);
+        Throwable error = null;
+        ClassData data = null;
+        if (proxy == null) {
+            error = new IllegalArgumentException(wrappingInterface.getName() + " does not have the proxy annotation");
+        } else {
+            try {
+                data = resolver.resolveClass(proxy.value());
+                if (data == null) error = new ClassNotFoundException(proxy.value());
+            } catch (RuntimeException | LinkageError e) {
+                error = e;
+            }
+        }
+
+        List<PrewarmReport.Entry> entries = new ArrayList<>();
+        entries.add(new PrewarmReport.Entry(wrappingInterface, null, null, error, System.nanoTime() - start));
+        if (data == null) {
+            return entries;
+        }
+
+        Class<?> receiver = data.getCls();
+        List<ForkJoinTask<PrewarmReport.Entry>> tasks = new ArrayList<>();
+        for (Method method : bindable(wrappingInterface)) {
+            tasks.add(ForkJoinTask.adapt(() -> prewarm(wrappingInterface, method, receiver)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        for (ForkJoinTask<PrewarmReport.Entry> task : tasks) {
+            entries.add(task.join());
+        }
+        return entries;
+    }
+
+    private PrewarmReport.Entry prewarm(Class<?> wrappingInterface, Method method, Class<?> receiver) {
+        long start = System.nanoTime();
+        Resolution resolution = null;
+        Throwable error = null;
+        try {
+            MethodBinding binding = binding(wrappingInterface, method);
+            if (!binding.isDefault()) {
+                resolution = binding.prewarm(receiver);
+                if (resolution == null) {
+                    String message = String.format("%s.%s not found on %s", wrappingInterface.getSimpleName(),
+                        binding.getMemberName(), receiver.getName());
+                    error = method.isAnnotationPresent(FieldProxy.class)
+                        ? new NoSuchFieldException(message) : new NoSuchMethodException(message);
+                }
+            }
+        } catch (RuntimeException | LinkageError e) {
+            error = e;
+        }
+        return new PrewarmReport.Entry(wrappingInterface, method, resolution, error, System.nanoTime() - start);
+    }
+
+    /**
+     * Saves the linkages of the bindings to the given file, so a later run
+     * can {@link #loadSnapshot(Path) load} them instead of resolving their
+     * members. Every linkage is saved along with the
+     * {@link Resolver#fingerprint(String) fingerprints} of the dependency
+     * keys it was resolved from. The linkages whose keys can't be
+     * fingerprinted, and the ones of bindings gone megamorphic, are not
+     * saved. The file is replaced atomically when the file system allows it.
+     *
+     * @param path of the snapshot file.
+     *
+     * @return the amount of linkages saved.
+     *
+     * @throws IOException if the file could not be written.
+     */
+    public synchronized int saveSnapshot(@NotNull Path path) throws IOException {
+        Map<String, String> fingerprints = new HashMap<>();
+        Map<MethodBinding, Map<String, String>> keys = new HashMap<>();
+        dependents.forEach((key, bindings) -> {
+            String fingerprint = fingerprint(key, fingerprints);
+            synchronized (bindings) {
+                for (MethodBinding binding : bindings) {
+                    keys.computeIfAbsent(binding, b -> new HashMap<>()).put(key, fingerprint);
+                }
+            }
+        });
+
+        LinkageSnapshot snapshot = new LinkageSnapshot();
+        keys.forEach((binding, fingerprintsOfBinding) -> {
+            //Bindings without fingerprints can't be checked on load.
+            if (fingerprintsOfBinding.containsValue(null)) {
+                return;
+            }
+            for (Resolution resolution : binding.getResolutions()) {
+                LinkageSnapshot.Entry entry = LinkageSnapshot.Entry.of(resolution, fingerprintsOfBinding);
+                if (entry != null) snapshot.entries.add(entry);
+            }
+        });
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            Utils.gson().toJson(snapshot, writer);
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return snapshot.entries.size();
+    }
+
+    /**
+     * Links the bindings saved in the given {@link #saveSnapshot(Path)
+     * snapshot} file without resolving their members. Only the linkages
+     * whose dependency keys still have the same
+     * {@link Resolver#fingerprint(String) fingerprints}, and whose classes
+     * were loaded from the same files, are restored; the rest are resolved
+     * again as usual on their first invocation. Restored linkages are
+     * tracked like any other, so they are unlinked once their variables
+     * change.
+     *
+     * @param path of the snapshot file.
+     *
+     * @return the amount of linkages restored, 0 if the file doesn't exist
+     * or was saved by an incompatible version.
+     *
+     * @throws IOException           if the file could not be read or is
+     *                               malformed.
+     * @throws IllegalStateException if the linker is {@link #freeze(FreezeMode) frozen}.
+     */
+    public synchronized int loadSnapshot(@NotNull Path path) throws IOException {
+        if (isFrozen()) {
+            throw new IllegalStateException("Linker is frozen, load the snapshot before freezing");
+        }
+        if (!Files.exists(path)) {
+            return 0;
+        }
+
+        LinkageSnapshot snapshot;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            snapshot = Utils.gson().fromJson(reader, LinkageSnapshot.class);
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed linkage snapshot " + path, e);
+        }
+        if (snapshot == null || snapshot.version != LinkageSnapshot.VERSION || snapshot.entries == null) {
+            return 0;
+        }
+
+        Map<String, String> fingerprints = new HashMap<>();
+        int restored = 0;
+        for (LinkageSnapshot.Entry entry : snapshot.entries) {
+            try {
+                if (restore(entry, fingerprints)) restored++;
+            } catch (RuntimeException | LinkageError e) {
+                Utils.logger().log(Level.FINE, "Linkage of " + entry.wrappingInterface + "." + entry.method
+                    + " could not be restored", e);
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Restores the given snapshot entry if all its fingerprints and stamps
+     * are still the same.
+     *
+     * @return whether the entry was restored.
+     */
+    private boolean restore(LinkageSnapshot.Entry entry, Map<String, String> fingerprints) {
+        if (entry.keys == null || entry.keys.isEmpty()) {
+            return false;
+        }
+        for (Map.Entry<String, String> key : entry.keys.entrySet()) {
+            String fingerprint = fingerprint(key.getKey(), fingerprints);
+            if (fingerprint == null || !fingerprint.equals(key.getValue())) {
+                return false;
+            }
+        }
+
+        ClassData wrappingInterface = ClassData.of(entry.wrappingInterface);
+        if (wrappingInterface == null) {
+            return false;
+        }
+        ClassLoader loader = wrappingInterface.getCls().getClassLoader();
+        ClassData receiver = ClassData.of(entry.receiver, loader);
+        ClassData owner = ClassData.of(entry.owner, loader);
+        if (receiver == null || owner == null || !entry.sameStamps(receiver.getCls(), owner.getCls())) {
+            return false;
+        }
+
+        Method method = entry.findMethod(wrappingInterface.getCls());
+        Member member = entry.findMember(owner.getCls());
+        if (method == null || member == null) {
+            return false;
+        }
+
+        MethodBinding binding = binding(wrappingInterface.getCls(), method);
+        if (binding.isDefault()) {
+            return false;
+        }
+        //Track it first, so a variable changing meanwhile unlinks it.
+        track(binding, entry.keys.keySet());
+        return binding.restore(receiver.getCls(), member, entry.strategy);
+    }
+
+    /**
+     * @return the fingerprint of the given key, memoized in the given map,
+     * null if the resolver can't fingerprint it.
+     */
+    private String fingerprint(String key, Map<String, String> fingerprints) {
+        if (fingerprints.containsKey(key)) {
+            return fingerprints.get(key);
+        }
+
+        String fingerprint;
+        try {
+            fingerprint = resolver.fingerprint(key);
+        } catch (RuntimeException e) {
+            fingerprint = null;
+        }
+        fingerprints.put(key, fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * @return whether this linker is {@link #freeze(FreezeMode) frozen}.
+     */
+    public boolean isFrozen() {
+        return freezeMode != null;
+    }
+
+    /**
+     * Records that the given binding was resolved from the given variables.
+     *
+     * @param binding   resolved from the variables.
+     * @param variables the binding depends on.
+     */
+    void track(MethodBinding binding, Set<String> variables) {
+        for (String variable : variables) {
+            dependents.computeIfAbsent(variable, v -> Collections.synchronizedSet(
+                Collections.newSetFromMap(new WeakHashMap<>()))).add(binding);
+        }
+    }
+
+    /**
+     * Unlinks the bindings resolved from the given variable, so they are
+     * resolved again the next time they are invoked. The rest of the
+     * bindings stay linked.
+     *
+     * @param variable name of the variable which changed.
+     *
+     * @return the amount of bindings unlinked.
+     */
+    public int invalidate(@NotNull String variable) {
+        Set<MethodBinding> bindings = dependents.remove(variable);
+        if (bindings == null) {
+            return 0;
+        }
+
+        bindings.forEach(MethodBinding::invalidate);
+        return bindings.size();
+    }
+
+    /**
+     * @return the resolver used by this linker.
+     */
+    @NotNull
+    public Resolver getResolver() {
+        return resolver;
+    }
+
+    /**
+     * @return whether the members that can't be resolved by their name are
+     * looked up by their signature.
+     */
+    public boolean isSignatureFallback() {
+        return signatureFallback;
+    }
+
+    /**
+     * Sets whether the members that can't be resolved by their name are
+     * looked up by their signature, picking the only member of the proxied
+     * class matching the return and parameter types of the wrapping method.
+     * Disabled by default.
+     *
+     * @param signatureFallback whether to enable the signature fallback.
+     *
+     * @see mr.tommy.obbo.entity.MemberHint
+     */
+    public void setSignatureFallback(boolean signatureFallback) {
+        this.signatureFallback = signatureFallback;
+    }
+}
@@ -0,0 +1,151 @@
+package mr.tommy.obbo.reflection;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of all the members of a class and its hierarchy, filled by
+ * a single scan of the declared members of the class, its superclasses
+ * and then its interfaces.
+ *
+ * <p>
+ * Members declared closer to the class shadow the ones declared further
+ * up the hierarchy, so overridden methods resolve to the most derived
+ * declaration. Unlike {@link Class#getMethod(String, Class[])} non-public
+ * members of the superclasses are indexed as well.
+ *
+ * <p>
+ * Once built, the index is never modified, so all the lookups are plain
+ * hash probes.
+ */
+class MemberIndex {
+    private final Map<String, Field> fields = new HashMap<>();
+    private final Map<MethodDescriptor, Method> methods = new HashMap<>();
+    private final Map<String, List<Method>> overloads = new HashMap<>();
+    private final Map<MethodType, List<Method>> signatures = new HashMap<>();
+    private final Map<MethodDescriptor, Constructor<?>> constructors = new HashMap<>();
+
+    /**
+     * Builds the index of the given class.
+     *
+     * @param cls to index.
+     */
+    MemberIndex(@NotNull Class<?> cls) {
+        for (Constructor<?> constructor : cls.getDeclaredConstructors()) {
+            constructors.put(MethodDescriptor.of("<init>", constructor.getParameterTypes()), constructor);
+        }
+
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+        for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+            index(c);
+            Collections.addAll(interfaces, c.getInterfaces());
+        }
+
+        Set<Class<?>> visited = new HashSet<>();
+        while (!interfaces.isEmpty()) {
+            Class<?> i = interfaces.poll();
+            if (!visited.add(i)) continue;
+            index(i);
+            Collections.addAll(interfaces, i.getInterfaces());
+        }
+
+        for (Method method : methods.values()) {
+            MethodType type = MethodType.methodType(method.getReturnType(), method.getParameterTypes());
+            signatures.computeIfAbsent(type, t -> new ArrayList<>()).add(method);
+        }
+
+        overloads.replaceAll((name, list) -> Collections.unmodifiableList(list));
+        signatures.replaceAll((type, list) -> Collections.unmodifiableList(list));
+    }
+
+    /**
+     * Indexes the declared fields and methods of the given class, unless
+     * a class closer to the indexed one already declared them.
+     */
+    private void index(Class<?> c) {
+        for (Field field : c.getDeclaredFields()) {
+            fields.putIfAbsent(field.getName(), field);
+        }
+
+        for (Method method : c.getDeclaredMethods()) {
+            MethodDescriptor descriptor = MethodDescriptor.of(method.getName(), method.getParameterTypes());
+            Method previous = methods.get(descriptor);
+            if (previous == null) {
+                methods.put(descriptor, method);
+                overloads.computeIfAbsent(method.getName(), n -> new ArrayList<>()).add(method);
+            } else if (previous.getDeclaringClass() == c && previous.isBridge() && !method.isBridge()) {
+                //Covariant overrides declare a bridge method with the same
+                // parameters, prefer the actual method.
+                methods.put(descriptor, method);
+                List<Method> list = overloads.get(method.getName());
+                list.set(list.indexOf(previous), method);
+            }
+        }
+    }
+
+    /**
+     * @param name of the field.
+     *
+     * @return the field with the given name, null if none.
+     */
+    @Nullable
+    Field field(String name) {
+        return fields.get(name);
+    }
+
+    /**
+     * @param descriptor of the method.
+     *
+     * @return the method matching the given descriptor, null if none.
+     */
+    @Nullable
+    Method method(MethodDescriptor descriptor) {
+        return methods.get(descriptor);
+    }
+
+    /**
+     * @param name of the methods.
+     *
+     * @return all the overloads of the given method name, most derived
+     * first.
+     */
+    @NotNull
+    List<Method> overloads(String name) {
+        return overloads.getOrDefault(name, Collections.emptyList());
+    }
+
+    /**
+     * @param type return and parameter types of the methods.
+     *
+     * @return all the methods with the given signature, whatever their
+     * name is.
+     */
+    @NotNull
+    List<Method> signature(MethodType type) {
+        return signatures.getOrDefault(type, Collections.emptyList());
+    }
+
+    /**
+     * @param descriptor of the constructor, named {@code <init>}.
+     *
+     * @return the constructor matching the given descriptor, null if none.
+     */
+    @Nullable
+    Constructor<?> constructor(MethodDescriptor descriptor) {
+        return constructors.get(descriptor);
+    }
+}
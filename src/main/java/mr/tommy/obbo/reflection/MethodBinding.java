@@ -0,0 +1,821 @@
+package mr.tommy.obbo.reflection;
+
+import mr.tommy.obbo.entity.FieldProxy;
+import mr.tommy.obbo.entity.MemberHint;
+import mr.tommy.obbo.entity.Proxy;
+import mr.tommy.obbo.mapping.Resolver;
+import mr.tommy.obbo.mapping.resolver.Dependencies;
+import mr.tommy.obbo.util.Utils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.invoke.SwitchPoint;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.logging.Level;
+
+/**
+ * Binding of a single method of a wrapping interface to the member it
+ * ends up calling on the proxied class.
+ *
+ * <p>
+ * The resolved members are stored in a small inline cache keyed by the
+ * runtime class of the receiver, so subclasses of the proxied class and
+ * different classes wrapped by the same interface get their own members
+ * resolved (overridden and private ones included). Once more than
+ * {@link #POLYMORPHIC_LIMIT} receiver classes have been seen the binding
+ * goes megamorphic and the rest of the receivers are stored in a
+ * {@link ClassValue} instead. Receivers loaded by class loaders other
+ * than the one of the wrapping interface and its parents always are, so
+ * the binding doesn't keep them from being unloaded.
+ *
+ * <p>
+ * The inline cache is exposed as a {@link MutableCallSite} whose target
+ * is a chain of receiver class guards leading straight to the handles of
+ * the linked members, so once warm an invocation runs the guards and the
+ * member handle without reading any cache. Bindings are invoked from the
+ * handlers of {@link java.lang.reflect.Proxy proxies}, where the call site
+ * is not a constant, so the JIT doesn't inline it into the callers of the
+ * wrapping interface. The chain is guarded by a
+ * {@link SwitchPoint} which is invalidated along with the binding, so
+ * the call site relinks instead of calling outdated members.
+ *
+ * <p>
+ * Once {@link #freeze(FreezeMode) frozen} the binding never links new
+ * receivers, the ones linked before are the only ones cached.
+ *
+ * @see Linker
+ */
+public class MethodBinding {
+    //Amount of receiver classes kept inline before going megamorphic.
+    static final int POLYMORPHIC_LIMIT = 4;
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final AtomicReferenceFieldUpdater<MethodBinding, Linkage[]> ENTRIES =
+        AtomicReferenceFieldUpdater.newUpdater(MethodBinding.class, Linkage[].class, "entries");
+    private static final AtomicIntegerFieldUpdater<MethodBinding> EPOCH =
+        AtomicIntegerFieldUpdater.newUpdater(MethodBinding.class, "epoch");
+    /**
+     * Returned by {@link #invoke(Class, Object, Object[])} when the member
+     * could not be resolved for the receiver.
+     */
+    public static final Object NOT_FOUND = new Object();
+    //Type of the call site: (receiver, target, args) -> result.
+    private static final MethodType SITE_TYPE =
+        MethodType.methodType(Object.class, Class.class, Object.class, Object[].class);
+    private static final MethodHandle SAME_CLASS;
+    private static final MethodHandle FIRST_ARGUMENT;
+    private static final MethodHandle RELINK;
+    private static final MethodHandle SLOW_PATH;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            SAME_CLASS = lookup.findStatic(MethodBinding.class, "sameClass",
+                MethodType.methodType(boolean.class, Class.class, Class.class));
+            FIRST_ARGUMENT = lookup.findStatic(MethodBinding.class, "firstArgument",
+                MethodType.methodType(Object.class, Object.class, Object[].class));
+            RELINK = lookup.findVirtual(MethodBinding.class, "relink", SITE_TYPE);
+            SLOW_PATH = lookup.findVirtual(MethodBinding.class, "slowPath", SITE_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    //The linker owning this binding.
+    private final Linker linker;
+    //The wrapping interface and the method of it this binding is for.
+    private final Class<?> wrappingInterface;
+    private final Method method;
+    //Name of the member to resolve, this is the method name unless
+    // the method has a proxy annotation.
+    private final String memberName;
+    //Field proxy annotation of the method, null if it's not a field
+    // proxy.
+    @Nullable
+    private final FieldProxy fieldProxy;
+    //Hints used when the member is resolved by its signature.
+    @Nullable
+    private final MemberHint hint;
+    //Whether the returned value must be wrapped in its proxy interface.
+    private final boolean wrapsReturn;
+    //Handle of the default method, null if the method is not default.
+    @Nullable
+    private final MethodHandle defaultHandle;
+
+    //--- Inline cache ---
+    //Replaced by a new array on every invalidation, never by a shared
+    // one, so a linkage CASed against the array seen before it fails.
+    private volatile Linkage[] entries = new Linkage[0];
+    private volatile boolean megamorphic;
+    private volatile ClassValue<Linkage> megamorphicCache = megamorphicCache();
+    //Incremented on every invalidation, so linkages resolved before it
+    // are not cached.
+    private volatile int epoch;
+    //Last linkage resolved from uncached values, reused while they resolve
+    // to the same member so its handles are not created on every call.
+    private volatile Linkage lastUncached;
+
+    //--- Call site ---
+    private final MutableCallSite callSite = new MutableCallSite(SITE_TYPE);
+    private final MethodHandle invoker = callSite.dynamicInvoker();
+    private final MethodHandle relink = RELINK.bindTo(this);
+    private final MethodHandle slowPath = SLOW_PATH.bindTo(this);
+    //Guard of the current target of the call site, invalidated along
+    // with the binding.
+    private volatile SwitchPoint switchPoint = new SwitchPoint();
+
+    //--- Freezing ---
+    //Receivers linked outside the inline cache, weakly referenced.
+    private final Set<Class<?>> megamorphicReceivers = Collections.synchronizedSet(
+        Collections.newSetFromMap(new WeakHashMap<>()));
+    //Receivers linked when the binding was frozen, weakly referenced,
+    // null if not frozen.
+    private volatile FrozenReceivers frozenReceivers;
+    private volatile FreezeMode freezeMode;
+
+    /**
+     * Creates a new binding of the given method of the wrapping interface.
+     *
+     * @param linker            owning this binding.
+     * @param wrappingInterface declaring the method.
+     * @param method            of the wrapping interface.
+     */
+    MethodBinding(@NotNull Linker linker, @NotNull Class<?> wrappingInterface, @NotNull Method method) {
+        this.linker = linker;
+        this.wrappingInterface = wrappingInterface;
+        this.method = method;
+
+        //Get the cached method of the wrapping method to check their
+        // annotations.
+        CachedMethod cm = ClassData.of(method.getDeclaringClass())
+            .method(MethodDescriptor.of(method.getName(), method.getParameterTypes()));
+        this.fieldProxy = cm.getAnnotation(FieldProxy.class);
+        this.hint = cm.getAnnotation(MemberHint.class);
+        Proxy mpAnn = cm.getAnnotation(Proxy.class);
+        this.memberName = mpAnn != null ? mpAnn.value() : method.getName();
+        this.wrapsReturn = ClassData.of(method.getReturnType()).annotation(Proxy.class) != null;
+        this.defaultHandle = method.isDefault() ? defaultHandle(method) : null;
+        callSite.setTarget(relink);
+    }
+
+    /**
+     * @return whether the method of this binding is a default method of
+     * the wrapping interface.
+     */
+    public boolean isDefault() {
+        return defaultHandle != null;
+    }
+
+    /**
+     * @return whether the returned value of the method must be wrapped
+     * inside the proxy interface returned by the method.
+     */
+    public boolean wrapsReturn() {
+        return wrapsReturn;
+    }
+
+    /**
+     * @return the name of the member being resolved by this binding.
+     */
+    @NotNull
+    public String getMemberName() {
+        return memberName;
+    }
+
+    /**
+     * @return the method of the wrapping interface this binding is for.
+     */
+    @NotNull
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Invokes the default method of this binding in the given proxy.
+     *
+     * @param proxy where the default method is invoked.
+     * @param args  given to the proxy method.
+     *
+     * @return the value returned by the default method.
+     * @throws Throwable anything thrown by the default method.
+     */
+    Object invokeDefault(Object proxy, Object[] args) throws Throwable {
+        Object[] arguments = args == null ? NO_ARGS : args;
+        //noinspection ConstantConditions
+        return (Object) defaultHandle.invokeExact(proxy, arguments);
+    }
+
+    /**
+     * Invokes the member of this binding through its call site.
+     *
+     * @param receiver runtime class of the target, or the proxied class if
+     *                 the target is null.
+     * @param target   instance where to invoke the member, null if static.
+     * @param args     already unwrapped arguments.
+     *
+     * @return the value returned by the member, {@link #NOT_FOUND} if the
+     * member could not be resolved for the receiver.
+     * @throws Throwable anything thrown by the member.
+     */
+    public Object invoke(@NotNull Class<?> receiver, @Nullable Object target, Object[] args) throws Throwable {
+        return (Object) invoker.invokeExact(receiver, target, args);
+    }
+
+    /**
+     * Target of the call site while it's not linked or once its switch
+     * point was invalidated. Links the receiver and rebuilds the target.
+     */
+    private Object relink(Class<?> receiver, Object target, Object[] args) throws Throwable {
+        Linkage linkage = linkage(receiver);
+        updateCallSite();
+        return linkage == null ? NOT_FOUND : linkage.invoke(target, args);
+    }
+
+    /**
+     * Target of the call site for the receivers not in the guard chain,
+     * rebuilding the chain only if the receiver was added to it.
+     */
+    private Object slowPath(Class<?> receiver, Object target, Object[] args) throws Throwable {
+        Linkage[] before = entries;
+        Linkage linkage = linkage(receiver);
+        if (entries != before) {
+            updateCallSite();
+        }
+        return linkage == null ? NOT_FOUND : linkage.invoke(target, args);
+    }
+
+    /**
+     * Sets the target of the call site to a chain of receiver class guards
+     * over the linkages of the inline cache, falling back to the slow path,
+     * all guarded by the current switch point.
+     */
+    private void updateCallSite() {
+        //Read the switch point first, invalidate() empties the entries
+        // before replacing it.
+        SwitchPoint sp = switchPoint;
+        MethodHandle chain = slowPath;
+        Linkage[] current = entries;
+        for (int i = current.length - 1; i >= 0; i--) {
+            Linkage linkage = current[i];
+            chain = MethodHandles.guardWithTest(
+                MethodHandles.insertArguments(SAME_CLASS, 1, linkage.receiver),
+                linkage.invoker, chain);
+        }
+        callSite.setTarget(sp.guardWithTest(chain, relink));
+    }
+
+    private static boolean sameClass(Class<?> receiver, Class<?> expected) {
+        return receiver == expected;
+    }
+
+    private static Object firstArgument(Object target, Object[] args) {
+        return args[0];
+    }
+
+    /**
+     * Gets the report of how the member was resolved for the given
+     * receiver class, linking it if this is the first time the class is
+     * seen.
+     *
+     * @param receiver runtime class of the target instance.
+     *
+     * @return the resolution of the receiver class, null if the member
+     * could not be resolved.
+     */
+    @Nullable
+    public Resolution resolution(@NotNull Class<?> receiver) {
+        Linkage linkage = linkage(receiver);
+        return linkage == null ? null : linkage.resolution;
+    }
+
+    /**
+     * Links the given receiver class ahead of its first invocation and
+     * relinks the call site, so the first call goes straight to the member.
+     *
+     * @param receiver runtime class of the target instances.
+     *
+     * @return the resolution of the receiver class, null if the member
+     * could not be resolved.
+     */
+    @Nullable
+    Resolution prewarm(@NotNull Class<?> receiver) {
+        Linkage linkage = linkage(receiver);
+        updateCallSite();
+        return linkage == null ? null : linkage.resolution;
+    }
+
+    /**
+     * @return the resolutions of the receivers linked in the inline cache.
+     */
+    @NotNull
+    List<Resolution> getResolutions() {
+        List<Resolution> resolutions = new ArrayList<>();
+        for (Linkage entry : entries) {
+            resolutions.add(entry.resolution);
+        }
+        return resolutions;
+    }
+
+    /**
+     * Links the given receiver class to an already resolved member, as
+     * saved in a {@link LinkageSnapshot}, skipping its resolution. The
+     * receiver is not linked if it was already or if the inline cache is
+     * full.
+     *
+     * @param receiver runtime class of the target instances.
+     * @param member   resolved for the receiver, a method, or a field if
+     *                 this binding is for a field proxy.
+     * @param strategy the member was resolved with.
+     *
+     * @return whether the receiver was linked to the member.
+     */
+    boolean restore(@NotNull Class<?> receiver, @NotNull Member member, @NotNull Resolution.Strategy strategy) {
+        if ((fieldProxy != null) != (member instanceof Field) || !inlinable(receiver)) {
+            return false;
+        }
+
+        Linkage linkage = member instanceof Field ? linkField(receiver, (Field) member)
+            : linkMethod(receiver, (Method) member, strategy);
+        if (linkage.uncached) {
+            linkage = new Linkage(linkage, false);
+        }
+        while (true) {
+            Linkage[] current = entries;
+            if (megamorphic || current.length >= POLYMORPHIC_LIMIT) {
+                return false;
+            }
+            for (Linkage entry : current) {
+                if (entry.receiver == receiver) return false;
+            }
+
+            Linkage[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = linkage;
+            if (ENTRIES.compareAndSet(this, current, next)) {
+                updateCallSite();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gets the linkage of the given receiver class, linking it if this is
+     * the first time the class is seen.
+     *
+     * @param receiver runtime class of the target instance.
+     *
+     * @return the linkage of the receiver class, null if the member could
+     * not be resolved.
+     */
+    @Nullable
+    Linkage linkage(@NotNull Class<?> receiver) {
+        for (Linkage entry : entries) {
+            if (entry.receiver == receiver) return entry;
+        }
+
+        FrozenReceivers frozen = frozenReceivers;
+        if (frozen != null && !frozen.get(receiver)) {
+            return frozenMiss(receiver);
+        }
+
+        if (megamorphic || !inlinable(receiver)) {
+            return megamorphic(receiver);
+        }
+
+        int epoch = this.epoch;
+        Linkage linkage = link(receiver);
+        if (linkage == null || linkage.uncached) {
+            return linkage;
+        }
+
+        while (true) {
+            Linkage[] current = entries;
+            if (epoch != this.epoch) {
+                //Invalidated while linking, the linkage may be outdated.
+                return linkage;
+            }
+            for (Linkage entry : current) {
+                if (entry.receiver == receiver) return entry;
+            }
+
+            if (current.length >= POLYMORPHIC_LIMIT) {
+                megamorphic = true;
+                megamorphicReceivers.add(receiver);
+                return linkage;
+            }
+
+            Linkage[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = linkage;
+            if (ENTRIES.compareAndSet(this, current, next)) {
+                return linkage;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given receiver can be kept in the inline cache,
+     * which references it strongly. Only the receivers loaded by the class
+     * loader of the wrapping interface or by one of its parents are, as
+     * they can't be unloaded before the interface. The rest, like classes
+     * of plugins, are kept in the {@link ClassValue} cache, held by the
+     * receivers themselves, so they can still be unloaded.
+     */
+    private boolean inlinable(Class<?> receiver) {
+        ClassLoader receiverLoader = receiver.getClassLoader();
+        if (receiverLoader == null) {
+            return true;
+        }
+        for (ClassLoader loader = wrappingInterface.getClassLoader(); loader != null; loader = loader.getParent()) {
+            if (loader == receiverLoader) return true;
+        }
+        return false;
+    }
+
+    @Nullable
+    private Linkage megamorphic(Class<?> receiver) {
+        ClassValue<Linkage> cache = megamorphicCache;
+        Linkage linkage = cache.get(receiver);
+        if (linkage == null || linkage.uncached) {
+            //Do not remember members that were not found, they may be
+            // resolvable later on, nor the ones that must be resolved again.
+            cache.remove(receiver);
+        }
+        return linkage;
+    }
+
+    private ClassValue<Linkage> megamorphicCache() {
+        return new ClassValue<>() {
+            @Override
+            protected Linkage computeValue(Class<?> type) {
+                Linkage linkage = link(type);
+                if (linkage != null) megamorphicReceivers.add(type);
+                return linkage;
+            }
+        };
+    }
+
+    /**
+     * Freezes this binding, so only the receivers linked so far are linked
+     * again if the binding is invalidated, and the rest are handled as the
+     * given mode says.
+     *
+     * @param mode what to do with the receivers not linked so far.
+     */
+    void freeze(@NotNull FreezeMode mode) {
+        Set<Class<?>> receivers = new HashSet<>();
+        for (Linkage entry : entries) {
+            receivers.add(entry.receiver);
+        }
+        synchronized (megamorphicReceivers) {
+            receivers.addAll(megamorphicReceivers);
+        }
+
+        freezeMode = mode;
+        frozenReceivers = new FrozenReceivers(receivers);
+    }
+
+    /**
+     * Whether every class is one of the receivers linked when the binding
+     * was frozen. The receivers are only held while it's created, the
+     * answers are then kept by the classes themselves, so the receivers can
+     * still be unloaded.
+     */
+    private static final class FrozenReceivers extends ClassValue<Boolean> {
+        //Receivers linked when the binding was frozen, null once created.
+        private Set<Class<?>> receivers;
+
+        private FrozenReceivers(Set<Class<?>> receivers) {
+            this.receivers = receivers;
+            receivers.forEach(this::get);
+            this.receivers = null;
+        }
+
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            Set<Class<?>> receivers = this.receivers;
+            return receivers != null && receivers.contains(type);
+        }
+    }
+
+    /**
+     * Handles a receiver which was not linked before the binding was
+     * frozen.
+     */
+    @Nullable
+    private Linkage frozenMiss(Class<?> receiver) {
+        if (freezeMode == FreezeMode.FAIL_FAST) {
+            throw new IllegalStateException(String.format("%s.%s is frozen and was never linked for %s",
+                wrappingInterface.getSimpleName(), method.getName(), receiver.getName()));
+        }
+        return resolve(receiver);
+    }
+
+    /**
+     * Drops all the linkages of this binding, so the member is resolved
+     * again for every receiver class.
+     */
+    void invalidate() {
+        EPOCH.incrementAndGet(this);
+        megamorphicCache = megamorphicCache();
+        megamorphic = false;
+        entries = new Linkage[0];
+
+        SwitchPoint previous = switchPoint;
+        switchPoint = new SwitchPoint();
+        SwitchPoint.invalidateAll(new SwitchPoint[]{previous});
+    }
+
+    /**
+     * Resolves the member of this binding for the given receiver class,
+     * recording the variables the resolution depends on in the linker. If
+     * the resolution used values which may change at any time, like the
+     * ones of lazy providers, the linkage is marked as uncached instead, so
+     * the member is resolved again on every call.
+     *
+     * @param receiver runtime class of the target instance.
+     *
+     * @return the linkage of the given receiver, null if not found.
+     */
+    @Nullable
+    private Linkage link(Class<?> receiver) {
+        Set<String> variables = new HashSet<>();
+        Linkage linkage = Dependencies.record(variables, () -> resolve(receiver));
+        if (!Dependencies.removeUncached(variables)) {
+            linker.track(this, variables);
+            return linkage == null || !linkage.uncached ? linkage : new Linkage(linkage, false);
+        }
+        if (linkage == null) {
+            return null;
+        }
+
+        if (linkage.uncached) {
+            return linkage;
+        }
+        //Seen before freezing, so it's still resolved once frozen.
+        megamorphicReceivers.add(receiver);
+        linkage = new Linkage(linkage, true);
+        if (inlinable(receiver)) {
+            lastUncached = linkage;
+        }
+        return linkage;
+    }
+
+    /**
+     * @return the last uncached linkage if it's for the given receiver and
+     * member, null if not.
+     */
+    @Nullable
+    private Linkage lastUncached(Class<?> receiver, Member member, Resolution.Strategy strategy) {
+        Linkage last = lastUncached;
+        return last != null && last.receiver == receiver && last.resolution.getStrategy() == strategy
+            && last.resolution.getMember().equals(member) ? last : null;
+    }
+
+    /**
+     * Resolves the member of this binding for the given receiver class.
+     * The class hierarchy of the receiver is walked up until one of the
+     * classes resolves the member. If none does and the
+     * {@link Linker#isSignatureFallback() signature fallback} is enabled,
+     * the member is looked up by its signature.
+     *
+     * @param receiver runtime class of the target instance.
+     *
+     * @return the linkage of the given receiver, null if not found.
+     */
+    @Nullable
+    private Linkage resolve(Class<?> receiver) {
+        Resolver resolver = linker.getResolver();
+        Class<?>[] params = fieldProxy == null
+            ? Utils.fixParameters(method.getParameterTypes(), resolver) : null;
+
+        for (Class<?> cls = receiver; cls != null; cls = cls.getSuperclass()) {
+            Linkage linkage = fieldProxy != null ? linkField(resolver, receiver, cls)
+                : linkMethod(resolver, receiver, cls, params);
+            if (linkage != null) {
+                return linkage;
+            }
+        }
+
+        if (fieldProxy == null && linker.isSignatureFallback()) {
+            return linkBySignature(resolver, receiver, params);
+        }
+        return null;
+    }
+
+    @Nullable
+    private Linkage linkMethod(Resolver resolver, Class<?> receiver, Class<?> cls, Class<?>[] params) {
+        CachedMethod cm = resolver.resolveMethod(cls, wrappingInterface, memberName, params);
+        if (cm == null) {
+            return null;
+        }
+
+        return linkMethod(receiver, cm.getMethod(), Resolution.Strategy.NAME);
+    }
+
+    /**
+     * Looks up the only method of the receiver class matching the return
+     * and parameter types of the wrapping method, translated through their
+     * proxy annotations, and the {@link MemberHint hints} of the method.
+     * The methods declared by {@link Object} are never picked.
+     *
+     * @return the linkage of the method, null if there is none or more
+     * than one method matching.
+     */
+    @Nullable
+    private Linkage linkBySignature(Resolver resolver, Class<?> receiver, Class<?>[] params) {
+        Class<?> rType = method.getReturnType();
+        Proxy rProxy = ClassData.of(rType).annotation(Proxy.class);
+        if (rProxy != null) {
+            ClassData rData = resolver.resolveClass(rProxy.value());
+            if (rData == null) {
+                return null;
+            }
+            rType = rData.getCls();
+        }
+
+        List<Method> candidates = new ArrayList<>();
+        for (Method m : ClassData.of(receiver).methods(MethodType.methodType(rType, params))) {
+            if (m.getDeclaringClass() != Object.class && !m.isSynthetic() && matchesHint(receiver, m)) {
+                candidates.add(m);
+            }
+        }
+
+        if (candidates.size() != 1) {
+            Utils.logger().log(Level.FINE, "{0}.{1} can not be resolved by signature in {2}, candidates: {3}",
+                new Object[]{wrappingInterface.getSimpleName(), memberName, receiver.getName(), candidates});
+            return null;
+        }
+
+        Method target = candidates.get(0);
+        target.trySetAccessible();
+        Linkage linkage = linkMethod(receiver, target, Resolution.Strategy.SIGNATURE);
+        Utils.logger().log(Level.FINE, "Mapping entry of {0} missing, resolved as {1}",
+            new Object[]{memberName, linkage.resolution});
+        return linkage;
+    }
+
+    private boolean matchesHint(Class<?> receiver, Method m) {
+        if (hint == null) {
+            return true;
+        }
+
+        int modifiers = m.getModifiers();
+        if ((modifiers & hint.modifiers()) != hint.modifiers() || (modifiers & hint.excludedModifiers()) != 0) {
+            return false;
+        }
+
+        if (hint.depth() < 0) {
+            return true;
+        }
+
+        int depth = 0;
+        for (Class<?> c = receiver; c != null && c != m.getDeclaringClass(); c = c.getSuperclass()) {
+            depth++;
+        }
+        return depth == hint.depth();
+    }
+
+    private Linkage linkMethod(Class<?> receiver, Method target, Resolution.Strategy strategy) {
+        Linkage last = lastUncached(receiver, target, strategy);
+        if (last != null) {
+            return last;
+        }
+        try {
+            MethodHandle mh = MethodHandles.lookup().unreflect(target);
+            if (Modifier.isStatic(target.getModifiers())) {
+                mh = MethodHandles.dropArguments(mh, 0, Object.class);
+            }
+            return new Linkage(new Resolution(method, receiver, target, strategy),
+                spread(mh, target.getParameterCount()), false);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Method " + target + " could not be linked", e);
+        }
+    }
+
+    @Nullable
+    private Linkage linkField(Resolver resolver, Class<?> receiver, Class<?> cls) {
+        //noinspection ConstantConditions
+        String value = fieldProxy.value();
+        Field field = resolver.resolveField(cls, value.isBlank() ? method.getName() : value);
+        return field == null ? null : linkField(receiver, field);
+    }
+
+    private Linkage linkField(Class<?> receiver, Field field) {
+        Linkage last = lastUncached(receiver, field, Resolution.Strategy.NAME);
+        if (last != null) {
+            return last;
+        }
+        boolean isStatic = Modifier.isStatic(field.getModifiers());
+        try {
+            MethodHandle mh;
+            boolean setter = method.getParameterCount() > 0;
+            if (setter) {
+                mh = MethodHandles.lookup().unreflectSetter(field);
+                if (isStatic) mh = MethodHandles.dropArguments(mh, 0, Object.class);
+                mh = spread(mh, 1);
+            } else {
+                mh = MethodHandles.lookup().unreflectGetter(field);
+                if (isStatic) mh = MethodHandles.dropArguments(mh, 0, Object.class);
+                mh = MethodHandles.dropArguments(mh.asType(MethodType.genericMethodType(1)), 1, Object[].class);
+            }
+            return new Linkage(new Resolution(method, receiver, field, Resolution.Strategy.NAME), mh, setter);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Field " + field + " could not be linked", e);
+        }
+    }
+
+    /**
+     * Adapts the given handle taking the receiver and the given amount of
+     * parameters to a handle of type {@code (Object, Object[])Object}.
+     */
+    private static MethodHandle spread(MethodHandle mh, int params) {
+        return mh.asFixedArity()
+            .asType(MethodType.genericMethodType(params + 1))
+            .asSpreader(Object[].class, params);
+    }
+
+    private static MethodHandle defaultHandle(Method method) {
+        Class<?> dc = method.getDeclaringClass();
+        try {
+            MethodHandle mh = MethodHandles.privateLookupIn(dc, MethodHandles.lookup())
+                .unreflectSpecial(method, dc);
+            return spread(mh, method.getParameterCount());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Default method " + method + " could not be linked", e);
+        }
+    }
+
+    /**
+     * Member resolved for a single receiver class, with the handle used
+     * to invoke it.
+     */
+    static final class Linkage {
+        //The runtime class of the receiver this linkage is for.
+        final Class<?> receiver;
+        //Report of how the member was resolved.
+        final Resolution resolution;
+        //Handle of type (Object, Object[])Object invoking the member.
+        private final MethodHandle handle;
+        //Whether this is a field setter, which returns the value set.
+        private final boolean returnsArgument;
+        //Handle of the call site type invoking the member, returning the
+        // value set if it's a field setter.
+        final MethodHandle invoker;
+        //Whether the member was resolved from values which may change at
+        // any time, so it must be resolved again on every call.
+        final boolean uncached;
+
+        private Linkage(Resolution resolution, MethodHandle handle, boolean returnsArgument) {
+            this.receiver = resolution.getReceiver();
+            this.resolution = resolution;
+            this.handle = handle;
+            this.returnsArgument = returnsArgument;
+
+            MethodHandle invoker = returnsArgument
+                ? MethodHandles.foldArguments(FIRST_ARGUMENT, handle.asType(handle.type().changeReturnType(void.class)))
+                : handle;
+            this.invoker = MethodHandles.dropArguments(invoker, 0, Class.class);
+            this.uncached = false;
+        }
+
+        /**
+         * Creates a copy of the given linkage, changing whether it's cached.
+         */
+        private Linkage(Linkage linkage, boolean uncached) {
+            this.receiver = linkage.receiver;
+            this.resolution = linkage.resolution;
+            this.handle = linkage.handle;
+            this.returnsArgument = linkage.returnsArgument;
+            this.invoker = linkage.invoker;
+            this.uncached = uncached;
+        }
+
+        /**
+         * Invokes the member of this linkage.
+         *
+         * @param target instance where to invoke the member, null if static.
+         * @param args   already unwrapped arguments.
+         *
+         * @return the value returned by the member.
+         * @throws Throwable anything thrown by the member.
+         */
+        Object invoke(Object target, Object[] args) throws Throwable {
+            Object result = (Object) handle.invokeExact(target, args);
+            return returnsArgument ? args[0] : result;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.StringJoiner;
 
 /**
  * Represents a method descriptor. Used to cache the methods
@@ -38,7 +39,7 @@ public class MethodDescriptor {
      */
     public MethodDescriptor(String name, Class<?>... paramTypes) {
         this.name = name;
-        this.paramTypes = paramTypes;
+        this.paramTypes = paramTypes == null ? new Class<?>[0] : paramTypes;
     }
 
     /**
@@ -69,6 +70,13 @@ public class MethodDescriptor {
                 && Arrays.equals(getParamTypes(), that.getParamTypes());
     }
 
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", name + "(", ")");
+        for (Class<?> type : paramTypes) joiner.add(type.getName());
+        return joiner.toString();
+    }
+
     /**
      * @return the hashCode of this method.
      */
@@ -1,17 +1,12 @@
 package mr.tommy.obbo.reflection;
 
 import mr.tommy.obbo.Obbo;
-import mr.tommy.obbo.entity.FieldProxy;
 import mr.tommy.obbo.entity.Proxy;
 import mr.tommy.obbo.mapping.Resolver;
-import mr.tommy.obbo.util.Utils;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.invoke.MethodHandles;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.util.Arrays;
@@ -29,8 +24,14 @@ import java.util.StringJoiner;
  * @see Resolver
  */
 public class ObboInvocationHandler implements InvocationHandler {
+    private static final Object[] NO_ARGS = new Object[0];
+    //Amount of bindings cached by every handler.
+    private static final int CACHED_BINDINGS = 8;
     //The resolver of the methods and class names
     private final Resolver resolver;
+    //The linker holding the bindings of the wrapping interface
+    // methods, shared by all the handlers of the same Obbo.
+    private final Linker linker;
     //The class of the Proxy interface wrapping the target,
     // all the invoke calls from this invocation handler are
     // meant to be called from this wrapping interface class.
@@ -46,6 +47,10 @@ public class ObboInvocationHandler implements InvocationHandler {
     //Used when it's necessary to wrap another instance inside
     // another proxy class.
     private final Obbo obbo;
+    //Bindings of the methods invoked on this handler, looked up by the
+    // identity of the method, as proxies always pass the same instance.
+    // Copied on write, a lost update only costs a linker lookup.
+    private volatile Bound[] bound = new Bound[0];
 
     /**
      * Creates a new instance of the Invocation handler used by the
@@ -63,6 +68,7 @@ public class ObboInvocationHandler implements InvocationHandler {
     public ObboInvocationHandler(Obbo obbo, @NotNull Resolver resolver, Class<?> wrappingInterface, @Nullable Object target) {
         this.obbo = obbo;
         this.resolver = resolver;
+        this.linker = linker(obbo, resolver);
         this.wrappingInterface = wrappingInterface;
         ClassData classData = ClassData.of(wrappingInterface);
         Proxy proxyInfo = classData.annotation(Proxy.class);
@@ -91,6 +97,7 @@ public class ObboInvocationHandler implements InvocationHandler {
      */
     public ObboInvocationHandler(Obbo obbo, @NotNull Resolver resolver, Class<?> wrappingInterface, @Nullable Object target, ClassLoader loader) {
         this.resolver = resolver;
+        this.linker = linker(obbo, resolver);
         this.wrappingInterface = wrappingInterface;
         this.obbo = obbo;
         this.target = target;
@@ -103,83 +110,153 @@ public class ObboInvocationHandler implements InvocationHandler {
 
     @Override
     public Object invoke(Object proxy, @NotNull Method method, Object[] args) throws Throwable {
-        Class<?>[] pTypes = method.getParameterTypes();
-        Class<?>[] params = Utils.fixParameters(pTypes.clone(), resolver);
-        String mName = method.getName();
-        Class<?> rType = method.getReturnType();
+        //Proxies always dispatch the equals, hashCode and toString methods
+        // with Object as their declaring class, answer them directly
+        // from the target instead of resolving them.
+        if (method.getDeclaringClass() == Object.class) {
+            return invokeObjectMethod(proxy, method, args);
+        }
 
-        //Get the cached method of the wrapping method to check their
-        // annotations.
-        CachedMethod cm = ClassData.of(wrappingInterface).method(MethodDescriptor.of(mName, pTypes));
+        MethodBinding binding = binding(method);
+        if (binding.isDefault()) {
+            return binding.invokeDefault(proxy, args);
+        }
 
-        //Unwrap the arguments in case they are Obbo proxies
-        Object[] unwrappedArgs = args == null ? new Object[0] : args.clone();
-        for (int i = 0; i < unwrappedArgs.length; i++) {
-            Object arg = unwrappedArgs[i];
-            if (!java.lang.reflect.Proxy.isProxyClass(arg.getClass()))
-                continue;
+        //Resolve the member against the runtime class of the target,
+        // which may be a subclass of the proxied class.
+        Class<?> receiver = target == null ? proxiedClassData.getCls() : target.getClass();
 
-            InvocationHandler ih = java.lang.reflect.Proxy.getInvocationHandler(arg);
-            if (!(ih instanceof ObboInvocationHandler))
-                continue;
+        //Store the returned object from this member for being
+        // later processed.
+        Object result = binding.invoke(receiver, target, unwrap(args));
 
-            ObboInvocationHandler oih = (ObboInvocationHandler) ih;
-            unwrappedArgs[i] = oih.target;
+        //Member does not exist, throw no such method error
+        if (result == MethodBinding.NOT_FOUND) {
+            throwMethodNotFound(binding.getMemberName(), method.getParameterTypes(), args);
         }
+        return binding.wrapsReturn() ? wrap0(result, method.getReturnType()) : result;
+    }
 
-        //Check if the method does have a field proxy annotation.
-        // if it does, then return the value inside the given field
-        // or set it as the first argument given
-        FieldProxy fpAnn = cm.getAnnotation(FieldProxy.class);
-        if (fpAnn != null) {
-            String value = fpAnn.value();
-            Field field = value.isBlank() ? proxiedClassData.field(method.getName())
-                : resolver.resolveField(proxiedClassData.getCls(), value);
-
-            if (unwrappedArgs.length > 0) {
-                Object arg = unwrappedArgs[0];
-                field.set(target, arg);
-                return arg;
-            } else {
-                Object result = field.get(target);
-                return wrap0(result, rType);
-            }
+    /**
+     * Gets the binding of the given method from the ones cached by this
+     * handler, asking the linker and caching it if it isn't yet.
+     *
+     * @param method of the wrapping interface being invoked.
+     *
+     * @return the binding of the method.
+     */
+    @NotNull
+    private MethodBinding binding(Method method) {
+        Bound[] current = bound;
+        for (Bound entry : current) {
+            if (entry.method == method) return entry.binding;
         }
 
-        //Check if the method does actually have a proxy annotation.
-        // if it does, change the name of the method to the name used
-        // in the annotation.
-        Proxy mpAnn = cm.getAnnotation(Proxy.class);
-        if (mpAnn != null) {
-            mName = mpAnn.value();
+        MethodBinding binding = linker.binding(wrappingInterface, method);
+        if (current.length < CACHED_BINDINGS) {
+            Bound[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = new Bound(method, binding);
+            bound = next;
         }
+        return binding;
+    }
+
+    /**
+     * Binding cached for a method of the wrapping interface.
+     */
+    private static final class Bound {
+        private final Method method;
+        private final MethodBinding binding;
 
-        if (method.isDefault()) {
-            Class<?> dc = method.getDeclaringClass();
-            Constructor<MethodHandles.Lookup> constructor = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class);
-            constructor.setAccessible(true);
-            return constructor.newInstance(dc)
-                .unreflectSpecial(method, dc)
-                .bindTo(proxy)
-                .invokeWithArguments(unwrappedArgs);
+        private Bound(Method method, MethodBinding binding) {
+            this.method = method;
+            this.binding = binding;
         }
+    }
 
-        CachedMethod proxyMethod = resolver.resolveMethod(
-            proxiedClassData.getCls(),
-            wrappingInterface,
-            mName,
-            params
-        );
+    /**
+     * Handles the {@link Object#equals(Object)}, {@link Object#hashCode()}
+     * and {@link Object#toString()} methods of the proxy delegating them to
+     * the target instance.
+     *
+     * <p>
+     * Two wrappers are equal if their targets are equal, so wrappers can
+     * be used as keys of hash based collections. A wrapper is never equal
+     * to an instance that is not a wrapper, not even its own target, to
+     * keep the equality symmetric.
+     *
+     * @param proxy  instance the method was invoked on.
+     * @param method of the Object class invoked.
+     * @param args   given to the method.
+     *
+     * @return the result of the method.
+     */
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                Object other = args[0];
+                if (other == proxy) {
+                    return true;
+                }
 
-        //Method does not exist, throw no such method error
-        if (proxyMethod == null) {
-            throwMethodNotFound(mName, params, unwrappedArgs);
+                ObboInvocationHandler handler = handlerOf(other);
+                if (handler == null || target == null || handler.target == null) {
+                    return false;
+                }
+                return target.equals(handler.target);
+            case "hashCode":
+                return target == null ? System.identityHashCode(proxy) : target.hashCode();
+            default:
+                return target == null ? wrappingInterface.getName() + "(" + proxiedClassData.getName() + ")"
+                    : target.toString();
         }
+    }
 
-        //Store the returned object from this method for being
-        // later processed.
-        Object result = proxyMethod.getMethod().invoke(target, unwrappedArgs);
-        return wrap0(result, rType);
+    /**
+     * Gets the Obbo invocation handler of the given instance.
+     *
+     * @param instance which may be an Obbo proxy.
+     *
+     * @return the handler of the instance, null if the instance is not
+     * an Obbo proxy.
+     */
+    @Nullable
+    private static ObboInvocationHandler handlerOf(Object instance) {
+        if (instance == null || !java.lang.reflect.Proxy.isProxyClass(instance.getClass()))
+            return null;
+
+        InvocationHandler ih = java.lang.reflect.Proxy.getInvocationHandler(instance);
+        return ih instanceof ObboInvocationHandler ? (ObboInvocationHandler) ih : null;
+    }
+
+    /**
+     * Unwraps the arguments in case they are Obbo proxies.
+     *
+     * @param args given to the proxy method.
+     *
+     * @return the arguments to pass to the target member.
+     */
+    @NotNull
+    private static Object[] unwrap(Object[] args) {
+        if (args == null) {
+            return NO_ARGS;
+        }
+
+        Object[] unwrappedArgs = args.clone();
+        for (int i = 0; i < unwrappedArgs.length; i++) {
+            ObboInvocationHandler oih = handlerOf(unwrappedArgs[i]);
+            if (oih != null)
+                unwrappedArgs[i] = oih.target;
+        }
+        return unwrappedArgs;
+    }
+
+    /**
+     * Gets the linker of the given Obbo if it resolves with the same
+     * resolver, if not, then a new linker for the resolver is created.
+     */
+    private static Linker linker(Obbo obbo, Resolver resolver) {
+        return obbo != null && obbo.getResolver() == resolver ? obbo.getLinker() : new Linker(resolver);
     }
 
     @Contract("null, _ -> null")
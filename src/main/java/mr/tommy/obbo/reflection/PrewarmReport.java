@@ -0,0 +1,190 @@
+package mr.tommy.obbo.reflection;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Report of a {@link Linker#prewarm(java.util.concurrent.ForkJoinPool, Class[])
+ * prewarm}, with how long linking every member took and the members that
+ * could not be linked.
+ */
+public class PrewarmReport {
+    private final Set<Class<?>> interfaces;
+    private final List<Entry> entries;
+    private final long nanos;
+
+    /**
+     * Creates the report of a prewarm.
+     *
+     * @param interfaces wrapping interfaces prewarmed, the reachable ones
+     *                   included.
+     * @param entries    of every class and member linked.
+     * @param nanos      the prewarm took.
+     */
+    public PrewarmReport(@NotNull Set<Class<?>> interfaces, @NotNull List<Entry> entries, long nanos) {
+        this.interfaces = Set.copyOf(interfaces);
+        this.entries = List.copyOf(entries);
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return the wrapping interfaces prewarmed, including the ones
+     * reachable from the given ones.
+     */
+    @NotNull
+    public Set<Class<?>> getInterfaces() {
+        return interfaces;
+    }
+
+    /**
+     * @return the entries of every proxied class and member linked.
+     */
+    @NotNull
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return the entries of the classes and members which could not be
+     * linked.
+     */
+    @NotNull
+    public List<Entry> getFailures() {
+        List<Entry> failures = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.isFailed()) failures.add(entry);
+        }
+        return failures;
+    }
+
+    /**
+     * @return whether every class and member was linked.
+     */
+    public boolean isSuccessful() {
+        for (Entry entry : entries) {
+            if (entry.isFailed()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the wall time the whole prewarm took.
+     */
+    @NotNull
+    public Duration getDuration() {
+        return Duration.ofNanos(nanos);
+    }
+
+    @Override
+    public String toString() {
+        List<Entry> failures = getFailures();
+        StringBuilder builder = new StringBuilder(String.format(
+            "Prewarmed %d members of %d interfaces in %d ms, %d failures",
+            entries.size(), interfaces.size(), getDuration().toMillis(), failures.size()));
+        for (Entry failure : failures) {
+            builder.append(System.lineSeparator()).append("  ").append(failure);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Proxied class or member of a wrapping interface linked by a prewarm.
+     */
+    public static class Entry {
+        private final Class<?> wrappingInterface;
+        @Nullable
+        private final Method method;
+        @Nullable
+        private final Resolution resolution;
+        @Nullable
+        private final Throwable error;
+        private final long nanos;
+
+        /**
+         * Creates the entry of a linked class or member.
+         *
+         * @param wrappingInterface prewarmed.
+         * @param method            of the wrapping interface, null if the
+         *                          entry is for its proxied class.
+         * @param resolution        of the member, null if the entry is for
+         *                          a class, a default method or failed.
+         * @param error             why the class or member could not be
+         *                          linked, null if it was.
+         * @param nanos             linking took.
+         */
+        public Entry(@NotNull Class<?> wrappingInterface, @Nullable Method method, @Nullable Resolution resolution,
+                     @Nullable Throwable error, long nanos) {
+            this.wrappingInterface = wrappingInterface;
+            this.method = method;
+            this.resolution = resolution;
+            this.error = error;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return the wrapping interface of this entry.
+         */
+        @NotNull
+        public Class<?> getWrappingInterface() {
+            return wrappingInterface;
+        }
+
+        /**
+         * @return the method of the wrapping interface, null if this entry
+         * is for the proxied class of the interface.
+         */
+        @Nullable
+        public Method getMethod() {
+            return method;
+        }
+
+        /**
+         * @return how the member was resolved, null if this entry is for a
+         * class, a default method or failed.
+         */
+        @Nullable
+        public Resolution getResolution() {
+            return resolution;
+        }
+
+        /**
+         * @return why the class or member could not be linked, null if it
+         * was linked.
+         */
+        @Nullable
+        public Throwable getError() {
+            return error;
+        }
+
+        /**
+         * @return whether the class or member could not be linked.
+         */
+        public boolean isFailed() {
+            return error != null;
+        }
+
+        /**
+         * @return how long linking the class or member took.
+         */
+        @NotNull
+        public Duration getDuration() {
+            return Duration.ofNanos(nanos);
+        }
+
+        @Override
+        public String toString() {
+            String name = wrappingInterface.getSimpleName() + (method == null ? "" : "." + method.getName());
+            if (error != null) {
+                return String.format("%s failed: %s", name, error);
+            }
+            return String.format("%s linked in %d us%s", name, nanos / 1000,
+                resolution == null ? "" : " as " + resolution);
+        }
+    }
+}
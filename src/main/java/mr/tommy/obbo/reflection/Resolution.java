@@ -0,0 +1,93 @@
+package mr.tommy.obbo.reflection;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+
+/**
+ * Report of how the member of a {@link MethodBinding} was resolved for
+ * a receiver class.
+ */
+public class Resolution {
+    /**
+     * Strategy used to resolve a member.
+     */
+    public enum Strategy {
+        /**
+         * The member was resolved by its name, mapped by the
+         * {@link mr.tommy.obbo.mapping.Resolver resolver}.
+         */
+        NAME,
+        /**
+         * No member matched the resolved name and the member was picked
+         * because it was the only one matching the signature of the
+         * wrapping method.
+         */
+        SIGNATURE
+    }
+
+    private final Method method;
+    private final Class<?> receiver;
+    private final Member member;
+    private final Strategy strategy;
+
+    /**
+     * Creates a report of a resolved member.
+     *
+     * @param method   of the wrapping interface.
+     * @param receiver class the member was resolved for.
+     * @param member   resolved.
+     * @param strategy used to resolve the member.
+     */
+    public Resolution(@NotNull Method method, @NotNull Class<?> receiver, @NotNull Member member,
+                      @NotNull Strategy strategy) {
+        this.method = method;
+        this.receiver = receiver;
+        this.member = member;
+        this.strategy = strategy;
+    }
+
+    /**
+     * @return the method of the wrapping interface.
+     */
+    @NotNull
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the class the member was resolved for.
+     */
+    @NotNull
+    public Class<?> getReceiver() {
+        return receiver;
+    }
+
+    /**
+     * @return the member resolved.
+     */
+    @NotNull
+    public Member getMember() {
+        return member;
+    }
+
+    /**
+     * @return the strategy used to resolve the member.
+     */
+    @NotNull
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s.%s -> %s.%s (%s, by %s)",
+            method.getDeclaringClass().getSimpleName(),
+            method.getName(),
+            member.getDeclaringClass().getName(),
+            member.getName(),
+            receiver.getName(),
+            strategy.name().toLowerCase());
+    }
+}
@@ -0,0 +1,358 @@
+package mr.tommy.obbo.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrent cache used to store the results of expensive lookups,
+ * mostly the reflective ones.
+ *
+ * <p>
+ * The behavior of the cache is set when {@link #builder() building} it:
+ * <ul>
+ *     <li>Values can be held strongly, softly or weakly.</li>
+ *     <li>The cache can be bounded to a maximum size, evicting the entries
+ *     not used recently when it goes over it. Evictions follow the clock,
+ *     or second chance, policy: every hit only sets a flag on its entry,
+ *     and the evicting thread sweeps the entries from where it stopped the
+ *     last time, clearing the flags and evicting the entries without one,
+ *     so evicting an entry takes amortized constant time.</li>
+ *     <li>Lookups whose loader returns null are remembered as misses, for
+ *     ever or until their TTL expires.</li>
+ * </ul>
+ * Hits, misses and evictions are recorded in a {@link CacheStats.Counter}
+ * which may be shared by several caches.
+ *
+ * <p>
+ * No lock is held while a value is being loaded, so two threads missing
+ * the same key at the same time may both load it. Only the first value
+ * stored is kept.
+ *
+ * @param <K> the key type of the cache.
+ * @param <V> the value type of the cache.
+ */
+public class Cache<K, V> {
+    //Fraction of the maximum size the cache is trimmed to on eviction,
+    // so every insertion over the bound doesn't need to evict.
+    private static final double TRIM_FACTOR = 0.9;
+
+    private final Map<K, Entry> map = new ConcurrentHashMap<>();
+    private final long maximumSize;
+    private final Strength strength;
+    private final LongSupplier missTtl;
+    private final CacheStats.Counter stats;
+    //Whether a thread is already evicting entries.
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    //Hand of the clock, where the last eviction stopped. Only used by
+    // the thread evicting.
+    private Iterator<Map.Entry<K, Entry>> hand;
+
+    private Cache(Builder builder) {
+        this.maximumSize = builder.maximumSize;
+        this.strength = builder.strength;
+        this.missTtl = builder.missTtl;
+        this.stats = builder.stats != null ? builder.stats : new CacheStats.Counter();
+    }
+
+    /**
+     * Gets the value of the given key, if the value is not cached then
+     * the loader is going to be called and its result stored in the cache.
+     * If the loader returns null, a miss is stored instead so the loader is
+     * not called again for that key until the miss expires.
+     *
+     * @param key    of the value.
+     * @param loader called with the key to load the value when it's not
+     *               cached, may return null.
+     *
+     * @return the value of the key, null if there is none.
+     */
+    @Nullable
+    public V get(@NotNull K key, @NotNull Function<? super K, ? extends V> loader) {
+        Entry entry = map.get(key);
+        if (entry != null) {
+            if (entry.isMiss()) {
+                if (!entry.expired()) {
+                    stats.hit();
+                    return null;
+                }
+            } else {
+                V value = entry.value();
+                if (value != null) {
+                    //Avoid writing the flag on every hit.
+                    if (!entry.referenced) entry.referenced = true;
+                    stats.hit();
+                    return value;
+                }
+                //The value was collected.
+                if (map.remove(key, entry)) stats.evicted(1);
+            }
+        }
+
+        stats.miss();
+        V value = loader.apply(key);
+        Entry loaded = value == null ? new Entry(null, missTtl.getAsLong()) : new Entry(strength.wrap(value), 0);
+
+        Entry previous = map.putIfAbsent(key, loaded);
+        if (previous != null) {
+            V current = previous.isMiss() ? null : previous.value();
+            if (current != null) {
+                return current;
+            }
+            map.put(key, loaded);
+        }
+
+        if (map.size() > maximumSize) {
+            evict();
+        }
+        return value;
+    }
+
+    /**
+     * Gets the value of the given key without loading it.
+     *
+     * @param key of the value.
+     *
+     * @return the cached value, null if there is none or is a miss.
+     */
+    @Nullable
+    public V getIfPresent(@NotNull K key) {
+        Entry entry = map.get(key);
+        return entry == null || entry.isMiss() ? null : entry.value();
+    }
+
+    /**
+     * Removes the value of the given key.
+     *
+     * @param key to remove.
+     */
+    public void invalidate(@NotNull K key) {
+        map.remove(key);
+    }
+
+    /**
+     * Removes all the values of this cache.
+     */
+    public void invalidateAll() {
+        map.clear();
+    }
+
+    /**
+     * @return the amount of entries in the cache, misses included.
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /**
+     * @return a snapshot of the statistics of this cache, or of all the
+     * caches sharing its counter.
+     */
+    @NotNull
+    public CacheStats stats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * Evicts the entries not used recently until the cache is trimmed to a
+     * fraction of its maximum size. The clock hand gives every entry used
+     * since its last sweep a second chance, so at most two sweeps over the
+     * entries are needed. Only one thread evicts at a time, the rest just
+     * go over the bound for a moment.
+     */
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            long target = (long) (maximumSize * TRIM_FACTOR);
+            int excess = (int) (map.size() - target);
+            if (excess <= 0) {
+                return;
+            }
+
+            int evicted = 0;
+            //Bounds the sweep in case other threads keep using the entries.
+            long steps = 2L * map.size() + excess;
+            while (evicted < excess && steps-- > 0) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = map.entrySet().iterator();
+                    if (!hand.hasNext()) break;
+                }
+
+                Map.Entry<K, Entry> e = hand.next();
+                Entry entry = e.getValue();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else if (map.remove(e.getKey(), entry)) {
+                    evicted++;
+                }
+            }
+            stats.evicted(evicted);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Entry of the cache holding either a value, which may be softly or
+     * weakly referenced, or a miss.
+     */
+    private final class Entry {
+        //The value, a reference to it or null if it's a miss.
+        private final Object value;
+        //When the miss expires, in System.nanoTime() time, 0 if never.
+        private final long expiresAt;
+        //Whether the entry was used since the clock hand last swept it.
+        private volatile boolean referenced;
+
+        private Entry(Object value, long ttl) {
+            this.value = value;
+            this.expiresAt = ttl > 0 ? Math.max(1, System.nanoTime() + ttl) : 0;
+        }
+
+        boolean isMiss() {
+            return value == null;
+        }
+
+        boolean expired() {
+            return expiresAt != 0 && System.nanoTime() - expiresAt >= 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        V value() {
+            return (V) (value instanceof Reference ? ((Reference<?>) value).get() : value);
+        }
+    }
+
+    /**
+     * How strongly the values of the cache are referenced.
+     */
+    private enum Strength {
+        STRONG {
+            @Override
+            Object wrap(Object value) {
+                return value;
+            }
+        },
+        SOFT {
+            @Override
+            Object wrap(Object value) {
+                return new SoftReference<>(value);
+            }
+        },
+        WEAK {
+            @Override
+            Object wrap(Object value) {
+                return new WeakReference<>(value);
+            }
+        };
+
+        abstract Object wrap(Object value);
+    }
+
+    /**
+     * Builder of the caches.
+     */
+    public static class Builder {
+        private long maximumSize = Long.MAX_VALUE;
+        private Strength strength = Strength.STRONG;
+        private LongSupplier missTtl = () -> 0;
+        private CacheStats.Counter stats;
+
+        /**
+         * Bounds the cache to the given amount of entries, evicting the
+         * ones not used recently when the bound is exceeded.
+         *
+         * @param maximumSize amount of entries the cache can hold.
+         *
+         * @return this builder instance.
+         */
+        public Builder maximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Makes the cache hold its values through soft references, so they
+         * can be collected when the memory is needed.
+         *
+         * @return this builder instance.
+         */
+        public Builder softValues() {
+            this.strength = Strength.SOFT;
+            return this;
+        }
+
+        /**
+         * Makes the cache hold its values through weak references, so they
+         * are removed once nothing else references them.
+         *
+         * @return this builder instance.
+         */
+        public Builder weakValues() {
+            this.strength = Strength.WEAK;
+            return this;
+        }
+
+        /**
+         * Sets how long the misses are remembered for. The supplier is
+         * called every time a miss is stored.
+         *
+         * @param missTtl supplier of the TTL of the misses in nanoseconds,
+         *                0 to remember them forever.
+         *
+         * @return this builder instance.
+         */
+        public Builder missTtl(LongSupplier missTtl) {
+            this.missTtl = missTtl;
+            return this;
+        }
+
+        /**
+         * Sets the counter where the statistics of the cache are recorded,
+         * by default every cache has its own counter.
+         *
+         * @param stats counter of the statistics.
+         *
+         * @return this builder instance.
+         */
+        public Builder recordStats(CacheStats.Counter stats) {
+            this.stats = stats;
+            return this;
+        }
+
+        /**
+         * Builds the cache.
+         *
+         * @param <K> the key type of the cache.
+         * @param <V> the value type of the cache.
+         *
+         * @return a new cache with the policy of this builder.
+         */
+        public <K, V> Cache<K, V> build() {
+            return new Cache<>(this);
+        }
+    }
+
+    /**
+     * Creates a new cache builder.
+     *
+     * @return a builder of a cache.
+     */
+    @Contract(value = "-> new", pure = true)
+    public static @NotNull Builder builder() {
+        return new Builder();
+    }
+}
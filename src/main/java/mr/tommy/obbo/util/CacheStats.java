@@ -0,0 +1,98 @@
+package mr.tommy.obbo.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Snapshot of the statistics of one or more {@link Cache caches}.
+ *
+ * @see Cache
+ * @see Counter
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+
+    /**
+     * Creates a snapshot of the statistics of a cache.
+     *
+     * @param hits      amount of lookups answered from the cache.
+     * @param misses    amount of lookups that needed to be loaded.
+     * @param evictions amount of entries removed by the cache policy.
+     */
+    public CacheStats(long hits, long misses, long evictions) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * @return the amount of lookups answered from the cache, including
+     * the ones answered with a cached miss.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the amount of lookups that needed to load the value.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the amount of entries removed because of the size bound
+     * or because their soft or weak value was collected.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the ratio of lookups answered from the cache, 1 if there
+     * were no lookups at all.
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 1 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStats{hits=%d, misses=%d, evictions=%d, hitRate=%.2f}",
+            hits, misses, evictions, hitRate());
+    }
+
+    /**
+     * Counter where the caches record their statistics. A counter can be
+     * shared by several caches to aggregate their statistics.
+     */
+    public static class Counter {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        void hit() {
+            hits.increment();
+        }
+
+        void miss() {
+            misses.increment();
+        }
+
+        void evicted(int amount) {
+            evictions.add(amount);
+        }
+
+        /**
+         * @return a snapshot of the statistics recorded so far.
+         */
+        @NotNull
+        public CacheStats snapshot() {
+            return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package mr.tommy.obbo.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Map of class names split by their package segments, so the packages
+ * shared by many classes are stored once instead of once per class name.
+ *
+ * <p>
+ * The children of every node are kept in sorted arrays, and lookups
+ * compare the segments in place, so looking a name up never creates any
+ * object. The trie is filled once and only read afterwards: it can be
+ * read by several threads once safely published, but it must not be
+ * modified while it's being read.
+ *
+ * @param <V> the value type of the trie.
+ */
+public final class PackageTrie<V> {
+    private static final char SEPARATOR = '.';
+
+    private final Node<V> root = new Node<>();
+    //Segments of the names put so far, so equal segments are kept once.
+    // Dropped when the trie is frozen.
+    private Map<String, String> segments = new HashMap<>();
+    private int size;
+
+    /**
+     * Puts the value of the given class name, replacing the previous one.
+     *
+     * @param name  of the class.
+     * @param value of the class.
+     *
+     * @return the previous value of the class, null if it had none.
+     */
+    @Nullable
+    public V put(@NotNull String name, @NotNull V value) {
+        if (segments == null) {
+            throw new IllegalStateException("Frozen trie");
+        }
+
+        Node<V> node = root;
+        int start = 0;
+        while (true) {
+            int end = name.indexOf(SEPARATOR, start);
+            if (end < 0) end = name.length();
+
+            int i = node.find(name, start, end);
+            if (i < 0) {
+                String segment = name.substring(start, end);
+                i = node.insert(-i - 1, segments.computeIfAbsent(segment, s -> s));
+            }
+            node = node.children[i];
+            if (end == name.length()) {
+                break;
+            }
+            start = end + 1;
+        }
+
+        V previous = node.value;
+        node.value = value;
+        if (previous == null) size++;
+        return previous;
+    }
+
+    /**
+     * Trims the arrays of the nodes and drops the segments table once
+     * the trie is filled. The trie can't be modified afterwards.
+     *
+     * @return this trie.
+     */
+    @NotNull
+    public PackageTrie<V> freeze() {
+        segments = null;
+        root.trim();
+        return this;
+    }
+
+    /**
+     * @param name of the class.
+     *
+     * @return the value of the given class, null if it has none.
+     */
+    @Nullable
+    public V get(@NotNull String name) {
+        Node<V> node = root;
+        int start = 0;
+        while (true) {
+            int end = name.indexOf(SEPARATOR, start);
+            if (end < 0) end = name.length();
+
+            int i = node.find(name, start, end);
+            if (i < 0) {
+                return null;
+            }
+            node = node.children[i];
+            if (end == name.length()) {
+                return node.value;
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Calls the given action with every class name and its value.
+     *
+     * @param action to call.
+     */
+    public void forEach(@NotNull BiConsumer<String, V> action) {
+        root.forEach(new StringBuilder(), action);
+    }
+
+    /**
+     * @return the amount of classes with a value.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static final class Node<V> {
+        private static final String[] NO_SEGMENTS = new String[0];
+
+        private String[] segments = NO_SEGMENTS;
+        private Node<V>[] children = newArray(0);
+        private int count;
+        private V value;
+
+        @SuppressWarnings("unchecked")
+        private static <V> Node<V>[] newArray(int length) {
+            return (Node<V>[]) new Node<?>[length];
+        }
+
+        /**
+         * @return the index of the child with the given segment, or
+         * {@code -(insertion point) - 1} if there is none.
+         */
+        private int find(String name, int start, int end) {
+            int low = 0, high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(segments[mid], name, start, end);
+                if (cmp < 0) low = mid + 1;
+                else if (cmp > 0) high = mid - 1;
+                else return mid;
+            }
+            return -(low + 1);
+        }
+
+        private int insert(int index, String segment) {
+            if (count == segments.length) {
+                int length = Math.max(2, count * 2);
+                segments = Arrays.copyOf(segments, length);
+                children = Arrays.copyOf(children, length);
+            }
+            System.arraycopy(segments, index, segments, index + 1, count - index);
+            System.arraycopy(children, index, children, index + 1, count - index);
+            segments[index] = segment;
+            children[index] = new Node<>();
+            count++;
+            return index;
+        }
+
+        private void trim() {
+            if (count != segments.length) {
+                segments = Arrays.copyOf(segments, count);
+                children = Arrays.copyOf(children, count);
+            }
+            for (int i = 0; i < count; i++) {
+                children[i].trim();
+            }
+        }
+
+        private void forEach(StringBuilder name, BiConsumer<String, V> action) {
+            int length = name.length();
+            for (int i = 0; i < count; i++) {
+                if (length > 0) name.append(SEPARATOR);
+                name.append(segments[i]);
+                Node<V> child = children[i];
+                if (child.value != null) {
+                    action.accept(name.toString(), child.value);
+                }
+                child.forEach(name, action);
+                name.setLength(length);
+            }
+        }
+
+        private static int compare(String segment, String name, int start, int end) {
+            int length = Math.min(segment.length(), end - start);
+            for (int i = 0; i < length; i++) {
+                int cmp = segment.charAt(i) - name.charAt(start + i);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return segment.length() - (end - start);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package mr.tommy.obbo.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent calls with the same key, so while a call is
+ * running, the rest of the threads calling with the same key wait for its
+ * result instead of running it again.
+ *
+ * <p>
+ * Results are not remembered once the call finishes, caching them is up
+ * to the caller. A thread calling again with the key of a call it is
+ * already running just runs the supplier, instead of waiting for itself.
+ *
+ * @param <K> the key type of the calls.
+ * @param <V> the result type of the calls.
+ */
+public class SingleFlight<K, V> {
+    //The calls currently running, by their key.
+    private final Map<K, Call<V>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the given supplier, unless a call with the same key is already
+     * running, in which case its result is returned instead.
+     *
+     * @param key      of the call.
+     * @param supplier to run if there is no call with the same key running.
+     *
+     * @return the result of the supplier or the one of the running call.
+     */
+    public V run(@NotNull K key, @NotNull Supplier<? extends V> supplier) {
+        Call<V> call = new Call<>();
+        Call<V> running = calls.putIfAbsent(key, call);
+        if (running != null) {
+            return running.owner == Thread.currentThread() ? supplier.get() : running.join();
+        }
+
+        try {
+            V value = supplier.get();
+            call.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    private static final class Call<V> {
+        private final Thread owner = Thread.currentThread();
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        private V join() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw e;
+            }
+        }
+    }
+}
@@ -9,6 +9,8 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 
@@ -49,6 +51,43 @@ public class Utils {
         return value;
     }
 
+    /**
+     * Gets the value of a concurrent map and if there is none then the function
+     * is going to be called and the value returned stored in the map, unless
+     * another thread stored a value first, which is returned instead.
+     *
+     * <p>
+     * Unlike {@link ConcurrentMap#computeIfAbsent(Object, java.util.function.Function)}
+     * no lock is held while the function is computing the value, so slow
+     * lookups (like the ones loading classes) never block other threads nor
+     * pin the carrier of a virtual thread. Null values are not stored.
+     *
+     * @param map where to get the info from.
+     * @param key to try retrieving the value.
+     * @param function which is going to be called with the key when the map
+     *                 has no value for it.
+     * @param <K> the key type of the map.
+     * @param <V> the value type of the map.
+     *
+     * @return the value in the map at the given key or the one computed by the
+     * function if there was none.
+     */
+    @Nullable
+    public static <K, V> V computeIfAbsent(@NotNull Map<K, V> map, @NotNull K key,
+                                           @NotNull Function<? super K, ? extends V> function) {
+        V value = map.get(key);
+        if (value == null) {
+            value = function.apply(key);
+            if (value != null) {
+                V previous = map.putIfAbsent(key, value);
+                if (previous != null) {
+                    value = previous;
+                }
+            }
+        }
+        return value;
+    }
+
     /**
      * @return a global Gson instance.
      */
@@ -90,4 +129,48 @@ public class Utils {
         }
         return params;
     }
+
+    /**
+     * Builds the JVM descriptor of the given parameter types, without
+     * the return type, e.g. {@code (ILjava/lang/String;)}.
+     *
+     * @param params the parameter types.
+     *
+     * @return the descriptor of the parameters.
+     */
+    @NotNull
+    public static String descriptor(@NotNull Class<?>... params) {
+        StringBuilder builder = new StringBuilder().append('(');
+        for (Class<?> param : params) {
+            descriptor(builder, param);
+        }
+        return builder.append(')').toString();
+    }
+
+    private static void descriptor(StringBuilder builder, Class<?> type) {
+        if (type.isArray()) {
+            //Array names are already descriptors, just dotted.
+            builder.append(type.getName().replace('.', '/'));
+        } else if (!type.isPrimitive()) {
+            builder.append('L').append(type.getName().replace('.', '/')).append(';');
+        } else if (type == int.class) {
+            builder.append('I');
+        } else if (type == long.class) {
+            builder.append('J');
+        } else if (type == boolean.class) {
+            builder.append('Z');
+        } else if (type == byte.class) {
+            builder.append('B');
+        } else if (type == char.class) {
+            builder.append('C');
+        } else if (type == short.class) {
+            builder.append('S');
+        } else if (type == float.class) {
+            builder.append('F');
+        } else if (type == double.class) {
+            builder.append('D');
+        } else {
+            builder.append('V');
+        }
+    }
 }
@@ -0,0 +1,150 @@
+package mr.tommy.obbo.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Concurrent map with weakly referenced keys compared by identity.
+ * Entries are removed once their key is garbage collected, so the map
+ * can be keyed by things like {@link ClassLoader class loaders} without
+ * keeping them alive.
+ *
+ * <p>
+ * Note that the values must not strongly reference their keys, or the
+ * keys will never be collected.
+ *
+ * @param <K> the key type of the map.
+ * @param <V> the value type of the map.
+ */
+public class WeakIdentityMap<K, V> {
+    //Backing map, keyed by the weak references to the keys.
+    private final Map<Object, V> map = new ConcurrentHashMap<>();
+    //Queue where the references of the collected keys are enqueued.
+    private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+
+    /**
+     * Gets the value of the given key.
+     *
+     * @param key to get the value from.
+     *
+     * @return the value of the key, null if there is none.
+     */
+    @Nullable
+    public V get(@NotNull K key) {
+        expunge();
+        return map.get(new LookupKey(key));
+    }
+
+    /**
+     * Gets the value of the given key and if there is none then the
+     * function is going to be called and its value stored, unless another
+     * thread stored a value first, which is returned instead.
+     *
+     * @param key      to get the value from.
+     * @param function called with the key if there is no value for it.
+     *
+     * @return the value of the given key.
+     */
+    public V computeIfAbsent(@NotNull K key, @NotNull Function<? super K, ? extends V> function) {
+        V value = get(key);
+        if (value == null) {
+            value = function.apply(key);
+            V previous = map.putIfAbsent(new WeakKey<>(key, queue), value);
+            if (previous != null) {
+                value = previous;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Removes the value of the given key.
+     *
+     * @param key to remove the value from.
+     *
+     * @return the removed value, null if there was none.
+     */
+    @Nullable
+    public V remove(@NotNull K key) {
+        expunge();
+        return map.remove(new LookupKey(key));
+    }
+
+    /**
+     * @return the amount of entries in this map, which may include some
+     * entries whose keys were just collected.
+     */
+    public int size() {
+        expunge();
+        return map.size();
+    }
+
+    /**
+     * Removes the entries of the keys already collected.
+     */
+    private void expunge() {
+        Reference<? extends K> reference;
+        while ((reference = queue.poll()) != null) {
+            map.remove(reference);
+        }
+    }
+
+    /**
+     * Weak reference to a key, stored in the backing map.
+     */
+    private static final class WeakKey<K> extends WeakReference<K> {
+        private final int hash;
+
+        private WeakKey(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hash = System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            Object key = get();
+            if (key == null) return false;
+            if (o instanceof WeakKey) return key == ((WeakKey<?>) o).get();
+            if (o instanceof LookupKey) return key == ((LookupKey) o).key;
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Strong key only used to look up the backing map, so lookups don't
+     * need to create a weak reference.
+     */
+    private static final class LookupKey {
+        private final Object key;
+
+        private LookupKey(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o instanceof WeakKey) return key == ((WeakKey<?>) o).get();
+            if (o instanceof LookupKey) return key == ((LookupKey) o).key;
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(key);
+        }
+    }
+}
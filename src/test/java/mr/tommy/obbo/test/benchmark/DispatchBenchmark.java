@@ -0,0 +1,65 @@
+package mr.tommy.obbo.test.benchmark;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.reflection.Linker;
+import mr.tommy.obbo.reflection.MethodBinding;
+import mr.tommy.obbo.test.polymorphic.Sub1;
+import mr.tommy.obbo.test.polymorphic.Wrapper;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+
+/**
+ * Reports the time per invocation of a wrapping interface method, looking
+ * its binding up in the linker on every call, as the invocation handlers
+ * used to, against reusing the binding, as they do now that they cache
+ * them, and through the proxy itself. Not run with the tests, run its main
+ * method from the test classpath, optionally passing the amount of calls
+ * per round.
+ */
+public class DispatchBenchmark {
+    private static final Object[] NO_ARGS = new Object[0];
+    //Consumed results, so the calls are not optimized away.
+    private static long sink;
+
+    public static void main(String[] args) throws Throwable {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+        Obbo obbo = new Obbo(JsonResolver.of(new InputStreamReader(stream)));
+        Linker linker = obbo.getLinker();
+        Sub1 target = new Sub1();
+        Wrapper wrapper = obbo.wrap(Wrapper.class, target);
+        Method value = Wrapper.class.getMethod("value");
+        Method secret = Wrapper.class.getMethod("secret");
+        MethodBinding valueBinding = linker.binding(Wrapper.class, value);
+        MethodBinding secretBinding = linker.binding(Wrapper.class, secret);
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                Method method = (i & 1) == 0 ? value : secret;
+                sink += (int) linker.binding(Wrapper.class, method).invoke(Sub1.class, target, NO_ARGS);
+            }
+            long lookup = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                MethodBinding binding = (i & 1) == 0 ? valueBinding : secretBinding;
+                sink += (int) binding.invoke(Sub1.class, target, NO_ARGS);
+            }
+            long cached = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                sink += (i & 1) == 0 ? wrapper.value() : wrapper.secret();
+            }
+            long proxy = System.nanoTime() - start;
+
+            System.out.printf("round %d: linker lookup %.1f ns/op, cached binding %.1f ns/op, proxy %.1f ns/op%n",
+                round, lookup / (double) calls, cached / (double) calls, proxy / (double) calls);
+        }
+        System.out.println(sink != 0 ? "" : "-");
+    }
+}
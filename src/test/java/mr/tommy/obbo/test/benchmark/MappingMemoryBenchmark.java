@@ -0,0 +1,89 @@
+package mr.tommy.obbo.test.benchmark;
+
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reports the heap retained by a {@link JsonResolver} per mapping entry,
+ * once its class infos are built. Not run with the tests, run its main
+ * method from the test classpath, optionally passing the amount of
+ * classes and of members per class.
+ *
+ * <p>
+ * The generated mappings look like real ones: classes spread over a few
+ * deep packages, members with descriptors mapped to short obfuscated
+ * names which repeat in every class, and some class names with variables.
+ */
+public class MappingMemoryBenchmark {
+    public static void main(String[] args) throws IOException {
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int members = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+        Path file = Files.createTempFile("mappings", ".json");
+        try {
+            generate(file, classes, members);
+            long entries = (long) classes * members;
+
+            long start = System.nanoTime();
+            long before = usedHeap();
+            JsonResolver resolver = JsonResolver.of(file);
+            //Builds the class infos.
+            resolver.resolveField(Object.class, "none");
+            long after = usedHeap();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.printf("%d classes, %d entries: %.1f bytes per entry, %d MB retained, %d ms%n",
+                classes, entries, (after - before) / (double) entries, (after - before) >> 20, millis);
+            //Keep the resolver reachable until measured.
+            System.out.println(resolver.getFactory() != null ? "" : "-");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void generate(Path file, int classes, int members) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("{\"variables\": {\"pkg\": \"net.example.server.v1_8_R3\"}, \"replacements\": {");
+            for (int c = 0; c < classes; c++) {
+                if (c > 0) out.write(',');
+                String pkg = (c % 10 == 0 ? "@pkg@" : "net.example.server.v1_8_R3") + ".module" + (c % 16);
+                out.write("\"" + pkg + ".Class" + c + "\": [");
+                for (int m = 0; m < members; m++) {
+                    if (m > 0) out.write(',');
+                    if (m % 4 == 3) {
+                        out.write("{\"type\": \"field\", \"name\": \"field" + m + "\", \"original\": \""
+                            + obfuscated(m) + "\"}");
+                    } else {
+                        out.write("{\"method\": \"method" + m + "\", \"descriptor\": \"(ILjava/lang/String;)V\", "
+                            + "\"original\": \"" + obfuscated(m) + "\"}");
+                    }
+                }
+                out.write(']');
+            }
+            out.write("}}");
+        }
+    }
+
+    private static String obfuscated(int i) {
+        StringBuilder builder = new StringBuilder();
+        do {
+            builder.append((char) ('a' + i % 26));
+            i = i / 26 - 1;
+        } while (i >= 0);
+        return builder.toString();
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
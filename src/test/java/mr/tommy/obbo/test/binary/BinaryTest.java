@@ -0,0 +1,74 @@
+package mr.tommy.obbo.test.binary;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.Provider;
+import mr.tommy.obbo.mapping.resolver.binary.BinaryResolver;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.mapping.resolver.mappings.MappingFormat;
+import mr.tommy.obbo.mapping.resolver.mappings.MappingsResolver;
+import mr.tommy.obbo.test.overload.Wrapper;
+import mr.tommy.obbo.test.overload.v1.C1;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class BinaryTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @org.junit.Test
+    public void json() throws IOException {
+        InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+        Assert.assertNotNull(stream);
+        Path file = folder.newFile("resolver.bin").toPath();
+        JsonResolver.of(new InputStreamReader(stream)).compile(file);
+
+        BinaryResolver resolver = BinaryResolver.of(file);
+        Assert.assertEquals(0, resolver.getDecodedClasses());
+        Assert.assertEquals(C1.class.getName(), resolver.parseClass("@base@.overload.v1.C1"));
+
+        Wrapper wrapper = new Obbo(resolver).wrap(Wrapper.class, new C1());
+        Assert.assertEquals(4, wrapper.value(2));
+        Assert.assertEquals("b!", wrapper.value("b"));
+        Assert.assertEquals("d", wrapper.value());
+        Assert.assertEquals(7, wrapper.count());
+        Assert.assertEquals(1, resolver.getDecodedClasses());
+    }
+
+    @org.junit.Test
+    public void mappings() throws IOException {
+        String named = "mr.tommy.obbo.test.mappings.Named";
+        MappingsResolver source = MappingsResolver.of(new StringReader(
+            named + " -> " + mr.tommy.obbo.test.mappings.v1.C1.class.getName() + ":\n"
+                + "    int count -> c\n"
+                + "    int value(int) -> a\n"
+                + "    java.lang.String value(java.lang.String) -> b\n"
+                + "    boolean same(" + named + ") -> e\n"), MappingFormat.PROGUARD);
+        Path file = folder.newFile("mappings.bin").toPath();
+        source.compile(file);
+
+        BinaryResolver resolver = BinaryResolver.of(file);
+        resolver.registerProvider("base", Provider.of("mr.tommy.obbo.test"));
+        Obbo obbo = new Obbo(resolver);
+        mr.tommy.obbo.test.mappings.v1.C1 c1 = new mr.tommy.obbo.test.mappings.v1.C1();
+        mr.tommy.obbo.test.mappings.Wrapper wrapper = obbo.wrap(mr.tommy.obbo.test.mappings.Wrapper.class, c1);
+        Assert.assertEquals(4, wrapper.value(2));
+        Assert.assertEquals("b!", wrapper.value("b"));
+        Assert.assertTrue(wrapper.same(obbo.wrap(mr.tommy.obbo.test.mappings.Wrapper.class, c1)));
+        Assert.assertEquals(7, wrapper.count());
+    }
+
+    @org.junit.Test
+    public void invalid() throws IOException {
+        Path file = folder.newFile("invalid.bin").toPath();
+        Files.write(file, new byte[]{1, 2, 3});
+        Assert.assertThrows(IOException.class, () -> BinaryResolver.of(file));
+    }
+}
@@ -0,0 +1,48 @@
+package mr.tommy.obbo.test.cache;
+
+import mr.tommy.obbo.util.Cache;
+import mr.tommy.obbo.util.CacheStats;
+import org.junit.Assert;
+
+public class CacheTest {
+    @org.junit.Test
+    public void bounded() {
+        Cache<Integer, String> cache = Cache.builder().maximumSize(100).build();
+        for (int i = 0; i < 1000; i++) {
+            cache.get(i, String::valueOf);
+        }
+        Assert.assertTrue(cache.size() <= 100);
+
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(1000, stats.getMisses());
+        Assert.assertEquals(0, stats.getHits());
+        Assert.assertEquals(1000 - cache.size(), stats.getEvictions());
+    }
+
+    @org.junit.Test
+    public void recentlyUsed() {
+        Cache<Integer, String> cache = Cache.builder().maximumSize(100).build();
+        for (int i = 0; i < 1000; i++) {
+            cache.get(i, String::valueOf);
+            //Keep using the first entry, it gets a second chance every sweep.
+            cache.get(0, String::valueOf);
+        }
+        Assert.assertEquals("0", cache.getIfPresent(0));
+        //Never loaded again.
+        Assert.assertEquals(1000, cache.stats().getMisses());
+    }
+
+    @org.junit.Test
+    public void misses() {
+        Cache<String, String> cache = Cache.builder().build();
+        int[] loads = {0};
+        for (int i = 0; i < 5; i++) {
+            Assert.assertNull(cache.get("missing", k -> {
+                loads[0]++;
+                return null;
+            }));
+        }
+        Assert.assertEquals(1, loads[0]);
+        Assert.assertEquals(4, cache.stats().getHits());
+    }
+}
@@ -0,0 +1,28 @@
+package mr.tommy.obbo.test.classloader;
+
+import mr.tommy.obbo.reflection.ClassData;
+import mr.tommy.obbo.test.methodinvoke.v1.C1;
+import org.junit.Assert;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+public class ClassLoaderTest {
+    @org.junit.Test
+    public void test() throws Exception {
+        URL classes = C1.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader l1 = new URLClassLoader(new URL[]{classes}, null);
+             URLClassLoader l2 = new URLClassLoader(new URL[]{classes}, null)) {
+            ClassData d1 = ClassData.of(C1.class.getName(), l1);
+            ClassData d2 = ClassData.of(C1.class.getName(), l2);
+            ClassData d0 = ClassData.of(C1.class.getName());
+
+            Assert.assertNotNull(d1);
+            Assert.assertNotNull(d2);
+            Assert.assertSame(l1, d1.getCls().getClassLoader());
+            Assert.assertSame(l2, d2.getCls().getClassLoader());
+            Assert.assertSame(C1.class, d0.getCls());
+            Assert.assertSame(d1, ClassData.of(C1.class.getName(), l1));
+        }
+    }
+}
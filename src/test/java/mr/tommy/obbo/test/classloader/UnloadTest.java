@@ -0,0 +1,47 @@
+package mr.tommy.obbo.test.classloader;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.test.polymorphic.Sub1;
+import mr.tommy.obbo.test.polymorphic.Wrapper;
+import org.junit.Assert;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+public class UnloadTest {
+    @org.junit.Test
+    public void test() throws Exception {
+        InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+        Assert.assertNotNull(stream);
+        Obbo obbo = new Obbo(JsonResolver.of(new InputStreamReader(stream)));
+
+        WeakReference<ClassLoader> loader = invokeFromPlugin(obbo);
+        for (int i = 0; i < 50 && loader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        Assert.assertNull("The linker keeps the plugin classes from being unloaded", loader.get());
+
+        //Receivers of the wrapping interface loader are still linked.
+        Assert.assertEquals(1, obbo.wrap(Wrapper.class, new Sub1()).value());
+    }
+
+    /**
+     * Wraps and invokes an instance of a class loaded by a plugin class
+     * loader, which isn't a parent of the loader of the wrapping interface.
+     */
+    private static WeakReference<ClassLoader> invokeFromPlugin(Obbo obbo) throws Exception {
+        URL classes = Sub1.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader plugin = new URLClassLoader(new URL[]{classes}, null)) {
+            Object target = plugin.loadClass(Sub1.class.getName()).getConstructor().newInstance();
+            Wrapper wrapper = obbo.wrap(Wrapper.class, target);
+            Assert.assertEquals(1, wrapper.value());
+            Assert.assertEquals(10, wrapper.secret());
+            return new WeakReference<>(plugin);
+        }
+    }
+}
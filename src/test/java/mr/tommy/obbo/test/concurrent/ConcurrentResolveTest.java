@@ -0,0 +1,51 @@
+package mr.tommy.obbo.test.concurrent;
+
+import mr.tommy.obbo.mapping.resolver.Provider;
+import mr.tommy.obbo.mapping.resolver.RetentionType;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import org.junit.Assert;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentResolveTest {
+    @org.junit.Test
+    public void test() throws Exception {
+        InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+        Assert.assertNotNull(stream);
+        JsonResolver resolver = JsonResolver.of(new InputStreamReader(stream));
+
+        AtomicInteger calls = new AtomicInteger();
+        resolver.registerProvider("slow", Provider.of(() -> {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "@base@.methodinvoke";
+        }, RetentionType.CACHED));
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Class<?>>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> resolver.resolveClass("@slow@.v1.C1").getCls());
+            }
+            for (Future<Class<?>> future : executor.invokeAll(tasks)) {
+                Assert.assertEquals(mr.tommy.obbo.test.methodinvoke.v1.C1.class, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,73 @@
+package mr.tommy.obbo.test.freeze;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.reflection.FreezeMode;
+import mr.tommy.obbo.reflection.Linker;
+import mr.tommy.obbo.test.polymorphic.Base;
+import mr.tommy.obbo.test.polymorphic.Sub1;
+import mr.tommy.obbo.test.polymorphic.Sub2;
+import mr.tommy.obbo.test.polymorphic.Sub3;
+import mr.tommy.obbo.test.polymorphic.Sub4;
+import mr.tommy.obbo.test.polymorphic.Sub5;
+import mr.tommy.obbo.test.polymorphic.Sub6;
+import mr.tommy.obbo.test.polymorphic.Wrapper;
+import org.junit.Assert;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+
+public class FreezeTest {
+    private static Obbo obbo() {
+        InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+        Assert.assertNotNull(stream);
+        return new Obbo(JsonResolver.of(new InputStreamReader(stream)));
+    }
+
+    @org.junit.Test
+    public void failFast() {
+        Obbo obbo = obbo();
+        Base[] warm = {new Sub1(), new Sub2(), new Sub3(), new Sub4(), new Sub5()};
+        for (Base target : warm) {
+            obbo.wrap(Wrapper.class, target).value();
+        }
+
+        obbo.freeze(FreezeMode.FAIL_FAST);
+        Assert.assertTrue(obbo.getLinker().isFrozen());
+        for (int i = 0; i < warm.length; i++) {
+            Assert.assertEquals(i + 1, obbo.wrap(Wrapper.class, warm[i]).value());
+        }
+
+        Wrapper cold = obbo.wrap(Wrapper.class, new Sub6());
+        Assert.assertThrows(IllegalStateException.class, cold::value);
+        Assert.assertThrows(IllegalStateException.class, () -> obbo.wrap(Wrapper.class, warm[0]).secret());
+
+        //Invalidated bindings link their receivers again.
+        obbo.getLinker().invalidate("base");
+        Assert.assertEquals(5, obbo.wrap(Wrapper.class, warm[4]).value());
+    }
+
+    @org.junit.Test
+    public void slowPath() {
+        Obbo obbo = obbo();
+        obbo.wrap(Wrapper.class, new Sub1()).value();
+
+        obbo.freeze();
+        Wrapper wrapper = obbo.wrap(Wrapper.class, new Sub2());
+        Assert.assertEquals(2, wrapper.value());
+        Assert.assertEquals(20, wrapper.secret());
+        Assert.assertEquals(-1, wrapper.hidden());
+    }
+
+    @org.junit.Test
+    public void slowPathBindingCached() throws NoSuchMethodException {
+        Obbo obbo = obbo();
+        obbo.freeze();
+
+        Method secret = Wrapper.class.getMethod("secret");
+        Linker linker = obbo.getLinker();
+        Assert.assertSame(linker.binding(Wrapper.class, secret), linker.binding(Wrapper.class, secret));
+        Assert.assertEquals(10, obbo.wrap(Wrapper.class, new Sub1()).secret());
+    }
+}
@@ -0,0 +1,43 @@
+package mr.tommy.obbo.test.inherit;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.test.inherit.v1.Sub;
+import org.junit.Assert;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+public class InheritTest {
+    private static JsonResolver resolver() {
+        InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+        Assert.assertNotNull(stream);
+        return JsonResolver.of(new InputStreamReader(stream));
+    }
+
+    @org.junit.Test
+    public void test() {
+        JsonResolver resolver = resolver();
+
+        Assert.assertNull(resolver.resolveMethod(Sub.class, Wrapper.class, "value"));
+        Assert.assertNull(resolver.resolveField(Sub.class, "count"));
+
+        resolver.setFlattenInheritance(true);
+        Assert.assertNotNull(resolver.resolveMethod(Sub.class, Wrapper.class, "value"));
+        Assert.assertNotNull(resolver.resolveField(Sub.class, "count"));
+
+        Wrapper wrapper = new Obbo(resolver).wrap(Wrapper.class, new Sub());
+        Assert.assertEquals(5, wrapper.value());
+        Assert.assertEquals(3, wrapper.count());
+        Assert.assertEquals("named", wrapper.name());
+    }
+
+    @org.junit.Test
+    public void notFlattened() {
+        //Walking up the superclasses of the receiver never reaches the
+        // entries of its interfaces.
+        Wrapper wrapper = new Obbo(resolver()).wrap(Wrapper.class, new Sub());
+        Assert.assertEquals(5, wrapper.value());
+        Assert.assertThrows(NoSuchMethodError.class, wrapper::name);
+    }
+}
@@ -0,0 +1,14 @@
+package mr.tommy.obbo.test.inherit;
+
+import mr.tommy.obbo.entity.FieldProxy;
+import mr.tommy.obbo.entity.Proxy;
+
+@Proxy("@base@.inherit.v1.Sub")
+public interface Wrapper {
+    int value();
+
+    String name();
+
+    @FieldProxy
+    int count();
+}
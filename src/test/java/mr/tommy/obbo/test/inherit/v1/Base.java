@@ -0,0 +1,9 @@
+package mr.tommy.obbo.test.inherit.v1;
+
+public class Base {
+    protected int b = 3;
+
+    public int a() {
+        return 5;
+    }
+}
@@ -0,0 +1,7 @@
+package mr.tommy.obbo.test.inherit.v1;
+
+public interface Named {
+    default String named() {
+        return "named";
+    }
+}
@@ -0,0 +1,4 @@
+package mr.tommy.obbo.test.inherit.v1;
+
+public class Sub extends Base implements Named {
+}
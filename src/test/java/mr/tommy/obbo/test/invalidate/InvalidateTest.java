@@ -0,0 +1,59 @@
+package mr.tommy.obbo.test.invalidate;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.Provider;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.reflection.Resolution;
+import mr.tommy.obbo.test.invalidate.v1.C1;
+import org.junit.Assert;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class InvalidateTest {
+    private static JsonResolver resolver() {
+        InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+        Assert.assertNotNull(stream);
+        return JsonResolver.of(new InputStreamReader(stream));
+    }
+
+    @org.junit.Test
+    public void test() throws Exception {
+        JsonResolver resolver = resolver();
+        resolver.registerProvider("member", Provider.of("a"));
+        Obbo obbo = new Obbo(resolver);
+
+        Wrapper wrapper = obbo.wrap(Wrapper.class, new C1());
+        Assert.assertEquals(1, wrapper.value());
+        Assert.assertEquals("other", wrapper.other());
+        Resolution other = obbo.getLinker()
+            .binding(Wrapper.class, Wrapper.class.getMethod("other"))
+            .resolution(C1.class);
+
+        resolver.registerProvider("member", Provider.of("b"));
+        Assert.assertEquals(1, wrapper.value());
+
+        obbo.invalidate("member");
+        Assert.assertEquals(2, wrapper.value());
+        Assert.assertSame(other, obbo.getLinker()
+            .binding(Wrapper.class, Wrapper.class.getMethod("other"))
+            .resolution(C1.class));
+    }
+
+    @org.junit.Test
+    public void lazy() {
+        JsonResolver resolver = resolver();
+        AtomicReference<String> member = new AtomicReference<>("a");
+        resolver.registerProvider("member", Provider.of(member::get));
+        Obbo obbo = new Obbo(resolver);
+
+        //Lazy members are resolved again on every call, without invalidating them.
+        Wrapper wrapper = obbo.wrap(Wrapper.class, new C1());
+        Assert.assertEquals(1, wrapper.value());
+        Assert.assertEquals(1, wrapper.value());
+        member.set("b");
+        Assert.assertEquals(2, wrapper.value());
+        Assert.assertEquals(2, obbo.wrap(Wrapper.class, new C1()).value());
+    }
+}
@@ -0,0 +1,11 @@
+package mr.tommy.obbo.test.invalidate;
+
+import mr.tommy.obbo.entity.Proxy;
+
+@Proxy("@base@.invalidate.v1.C1")
+public interface Wrapper {
+    @Proxy("@member@")
+    int value();
+
+    String other();
+}
@@ -0,0 +1,15 @@
+package mr.tommy.obbo.test.invalidate.v1;
+
+public class C1 {
+    public int a() {
+        return 1;
+    }
+
+    public int b() {
+        return 2;
+    }
+
+    public String other() {
+        return "other";
+    }
+}
@@ -0,0 +1,46 @@
+package mr.tommy.obbo.test.lookup;
+
+import mr.tommy.obbo.reflection.ClassData;
+import mr.tommy.obbo.reflection.MethodDescriptor;
+import mr.tommy.obbo.test.methodinvoke.v1.C1;
+import org.junit.Assert;
+
+import java.util.concurrent.TimeUnit;
+
+public class MissTest {
+    @org.junit.Test
+    public void test() {
+        ClassData data = ClassData.of(C1.class);
+        long failed = ClassData.getFailedLookups();
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertNull(data.field("missingField"));
+            Assert.assertNull(data.method(MethodDescriptor.of("missingMethod")));
+            Assert.assertNull(ClassData.of("mr.tommy.obbo.test.lookup.MissingClass"));
+        }
+
+        //Only the first lookup of each member is actually tried.
+        Assert.assertEquals(failed + 3, ClassData.getFailedLookups());
+        Assert.assertNotNull(data.method(MethodDescriptor.of("method1")));
+    }
+
+    @org.junit.Test
+    public void expires() throws InterruptedException {
+        long ttl = ClassData.getMissTtl(TimeUnit.NANOSECONDS);
+        ClassData.setMissTtl(50, TimeUnit.MILLISECONDS);
+        try {
+            ClassData data = ClassData.of(C1.class);
+            long failed = ClassData.getFailedLookups();
+            Assert.assertNull(data.field("expiringField"));
+            Assert.assertNull(data.field("expiringField"));
+            Assert.assertEquals(failed + 1, ClassData.getFailedLookups());
+
+            //Tried again once the miss expired.
+            Thread.sleep(100);
+            Assert.assertNull(data.field("expiringField"));
+            Assert.assertEquals(failed + 2, ClassData.getFailedLookups());
+        } finally {
+            ClassData.setMissTtl(ttl, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package mr.tommy.obbo.test.mappings;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.Provider;
+import mr.tommy.obbo.mapping.resolver.mappings.MappingFormat;
+import mr.tommy.obbo.mapping.resolver.mappings.MappingsResolver;
+import mr.tommy.obbo.test.mappings.v1.C1;
+import org.junit.Assert;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+public class MappingsTest {
+    private static final String NAMED = "mr/tommy/obbo/test/mappings/Named";
+    private static final String OBFUSCATED = "mr/tommy/obbo/test/mappings/v1/C1";
+
+    @org.junit.Test
+    public void proguard() throws IOException {
+        test(MappingFormat.PROGUARD, "# compiler: R8\n"
+            + NAMED.replace('/', '.') + " -> " + OBFUSCATED.replace('/', '.') + ":\n"
+            + "    int count -> c\n"
+            + "    1:1:int value(int):12:12 -> a\n"
+            + "    java.lang.String value(java.lang.String) -> b\n"
+            + "    boolean same(" + NAMED.replace('/', '.') + ") -> e\n"
+            + "    2:3:void mr.tommy.obbo.test.Other.inlined():4:5 -> e\n");
+    }
+
+    @org.junit.Test
+    public void tiny() throws IOException {
+        test(MappingFormat.TINY, "tiny\t2\t0\tofficial\tintermediary\tnamed\n"
+            + "\tsorted\n"
+            + "c\t" + OBFUSCATED + "\tclass_1\t" + NAMED + "\n"
+            + "\tc\tA comment\n"
+            + "\tf\tI\tc\tfield_1\tcount\n"
+            + "\tm\t(I)I\ta\tmethod_1\tvalue\n"
+            + "\t\tp\t1\t\t\ti\n"
+            + "\tm\t(Ljava/lang/String;)Ljava/lang/String;\tb\tmethod_2\tvalue\n"
+            + "\tm\t(L" + OBFUSCATED + ";)Z\te\tmethod_3\tsame\n");
+
+        test(MappingFormat.TINY, "v1\tofficial\tnamed\n"
+            + "CLASS\t" + OBFUSCATED + "\t" + NAMED + "\n"
+            + "FIELD\t" + OBFUSCATED + "\tI\tc\tcount\n"
+            + "METHOD\t" + OBFUSCATED + "\t(I)I\ta\tvalue\n"
+            + "METHOD\t" + OBFUSCATED + "\t(Ljava/lang/String;)Ljava/lang/String;\tb\tvalue\n"
+            + "METHOD\t" + OBFUSCATED + "\t(L" + OBFUSCATED + ";)Z\te\tsame\n");
+    }
+
+    @org.junit.Test
+    public void srg() throws IOException {
+        test(MappingFormat.SRG, "PK: mr/tommy/obbo/test mr/tommy/obbo/test\r\n"
+            + "CL: " + OBFUSCATED + " " + NAMED + "\r\n"
+            + "FD: " + OBFUSCATED + "/c " + NAMED + "/count\r\n"
+            + "MD: " + OBFUSCATED + "/a (I)I " + NAMED + "/value (I)I\r\n"
+            + "MD: " + OBFUSCATED + "/b (Ljava/lang/String;)Ljava/lang/String; " + NAMED
+            + "/value (Ljava/lang/String;)Ljava/lang/String;\r\n"
+            + "MD: " + OBFUSCATED + "/e (L" + OBFUSCATED + ";)Z " + NAMED + "/same (L" + NAMED + ";)Z\r\n");
+
+        test(MappingFormat.TSRG, OBFUSCATED + " " + NAMED + "\n"
+            + "\tc count\n"
+            + "\ta (I)I value\n"
+            + "\tb (Ljava/lang/String;)Ljava/lang/String; value\n"
+            + "\te (L" + OBFUSCATED + ";)Z same\n");
+
+        test(MappingFormat.TSRG, "tsrg2 obf srg named\n"
+            + OBFUSCATED + " " + OBFUSCATED + " " + NAMED + "\n"
+            + "\tc field_1 count\n"
+            + "\ta (I)I m_1 value\n"
+            + "\t\tstatic\n"
+            + "\t\t0 o p_1 i\n"
+            + "\tb (Ljava/lang/String;)Ljava/lang/String; m_2 value\n"
+            + "\te (L" + OBFUSCATED + ";)Z m_3 same\n");
+    }
+
+    @org.junit.Test
+    public void large() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            builder.append("com.example.Named").append(i).append(" -> a").append(i).append(":\n")
+                .append("    void run(com.example.Named").append(i).append(") -> b\n");
+        }
+        builder.append("com.example.Long").append("x".repeat(20000)).append(" -> c:\n");
+
+        MappingsResolver resolver = MappingsResolver.of(new StringReader(builder.toString()), MappingFormat.PROGUARD);
+        Assert.assertEquals(20001, resolver.getClassCount());
+        Assert.assertEquals("a12345", resolver.parseClass("com.example.Named12345"));
+        Assert.assertEquals("c", resolver.parseClass("com.example.Long" + "x".repeat(20000)));
+        Assert.assertEquals("com.example.Unmapped", resolver.parseClass("com.example.Unmapped"));
+    }
+
+    @org.junit.Test
+    public void malformed() {
+        Assert.assertThrows(IOException.class,
+            () -> MappingsResolver.of(new StringReader("    int count -> c\n"), MappingFormat.PROGUARD));
+        Assert.assertThrows(IOException.class,
+            () -> MappingsResolver.of(new StringReader("XX: a b\n"), MappingFormat.SRG));
+        Assert.assertThrows(IOException.class,
+            () -> MappingsResolver.of(new StringReader("tiny\t9\n"), MappingFormat.TINY));
+    }
+
+    private static void test(MappingFormat format, String mappings) throws IOException {
+        MappingsResolver resolver = MappingsResolver.of(new StringReader(mappings), format);
+        resolver.registerProvider("base", Provider.of("mr.tommy.obbo.test"));
+        Assert.assertEquals(1, resolver.getClassCount());
+        Assert.assertEquals(C1.class.getName(), resolver.parseClass("@base@.mappings.Named"));
+
+        Obbo obbo = new Obbo(resolver);
+        C1 c1 = new C1();
+        Wrapper wrapper = obbo.wrap(Wrapper.class, c1);
+        Assert.assertEquals(4, wrapper.value(2));
+        Assert.assertEquals("b!", wrapper.value("b"));
+        Assert.assertTrue(wrapper.same(obbo.wrap(Wrapper.class, c1)));
+        Assert.assertEquals(7, wrapper.count());
+    }
+}
@@ -0,0 +1,16 @@
+package mr.tommy.obbo.test.mappings;
+
+import mr.tommy.obbo.entity.FieldProxy;
+import mr.tommy.obbo.entity.Proxy;
+
+@Proxy("@base@.mappings.Named")
+public interface Wrapper {
+    int value(int i);
+
+    String value(String s);
+
+    boolean same(Wrapper other);
+
+    @FieldProxy
+    int count();
+}
@@ -0,0 +1,17 @@
+package mr.tommy.obbo.test.mappings.v1;
+
+public class C1 {
+    private int c = 7;
+
+    public int a(int i) {
+        return i * 2;
+    }
+
+    public String b(String s) {
+        return s + "!";
+    }
+
+    public boolean e(C1 other) {
+        return other == this;
+    }
+}
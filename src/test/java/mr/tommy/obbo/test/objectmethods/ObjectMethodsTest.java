@@ -0,0 +1,39 @@
+package mr.tommy.obbo.test.objectmethods;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.test.objectmethods.v1.C1;
+import org.junit.Assert;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ObjectMethodsTest {
+    @org.junit.Test
+    public void test() {
+        InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+        Assert.assertNotNull(stream);
+        JsonResolver resolver = JsonResolver.of(new InputStreamReader(stream));
+        Obbo obbo = new Obbo(resolver);
+
+        C1 target = new C1("a");
+        Wrapper w1 = obbo.wrap(Wrapper.class, target);
+        Wrapper w2 = obbo.wrap(Wrapper.class, new C1("a"));
+        Wrapper w3 = obbo.wrap(Wrapper.class, new C1("b"));
+
+        Assert.assertEquals(w1, w2);
+        Assert.assertNotEquals(w1, w3);
+        Assert.assertNotEquals(w1, target);
+        Assert.assertEquals(target.hashCode(), w1.hashCode());
+        Assert.assertEquals("C1(a)", w1.toString());
+
+        Set<Wrapper> set = new HashSet<>();
+        set.add(w1);
+        set.add(w2);
+        set.add(w3);
+        Assert.assertEquals(2, set.size());
+        Assert.assertTrue(set.contains(obbo.wrap(Wrapper.class, new C1("b"))));
+    }
+}
@@ -0,0 +1,7 @@
+package mr.tommy.obbo.test.objectmethods;
+
+import mr.tommy.obbo.entity.Proxy;
+
+@Proxy("@base@.objectmethods.v1.C1")
+public interface Wrapper {
+}
@@ -0,0 +1,28 @@
+package mr.tommy.obbo.test.objectmethods.v1;
+
+import java.util.Objects;
+
+public class C1 {
+    private final String id;
+
+    public C1(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof C1)) return false;
+        return id.equals(((C1) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "C1(" + id + ")";
+    }
+}
@@ -0,0 +1,24 @@
+package mr.tommy.obbo.test.overload;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.test.overload.v1.C1;
+import org.junit.Assert;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+public class OverloadTest {
+    @org.junit.Test
+    public void test() {
+        InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+        Assert.assertNotNull(stream);
+        Obbo obbo = new Obbo(JsonResolver.of(new InputStreamReader(stream)));
+
+        Wrapper wrapper = obbo.wrap(Wrapper.class, new C1());
+        Assert.assertEquals(4, wrapper.value(2));
+        Assert.assertEquals("b!", wrapper.value("b"));
+        Assert.assertEquals("d", wrapper.value());
+        Assert.assertEquals(7, wrapper.count());
+    }
+}
@@ -0,0 +1,16 @@
+package mr.tommy.obbo.test.overload;
+
+import mr.tommy.obbo.entity.FieldProxy;
+import mr.tommy.obbo.entity.Proxy;
+
+@Proxy("@base@.overload.v1.C1")
+public interface Wrapper {
+    int value(int i);
+
+    String value(String s);
+
+    String value();
+
+    @FieldProxy
+    int count();
+}
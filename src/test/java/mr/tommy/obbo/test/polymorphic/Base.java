@@ -0,0 +1,11 @@
+package mr.tommy.obbo.test.polymorphic;
+
+public class Base {
+    public int value() {
+        return 0;
+    }
+
+    private int hidden() {
+        return -1;
+    }
+}
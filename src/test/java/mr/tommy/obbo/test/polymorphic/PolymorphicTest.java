@@ -0,0 +1,30 @@
+package mr.tommy.obbo.test.polymorphic;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import org.junit.Assert;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+public class PolymorphicTest {
+    @org.junit.Test
+    public void test() {
+        InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+        Assert.assertNotNull(stream);
+        JsonResolver resolver = JsonResolver.of(new InputStreamReader(stream));
+        Obbo obbo = new Obbo(resolver);
+
+        Base[] targets = {new Sub1(), new Sub2(), new Sub3(), new Sub4(), new Sub5(), new Sub6()};
+        //Twice, so the receivers are served from the inline cache
+        // and from the megamorphic one.
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < targets.length; i++) {
+                Wrapper wrapper = obbo.wrap(Wrapper.class, targets[i]);
+                Assert.assertEquals(i + 1, wrapper.value());
+                Assert.assertEquals((i + 1) * 10, wrapper.secret());
+                Assert.assertEquals(-1, wrapper.hidden());
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package mr.tommy.obbo.test.polymorphic;
+
+public class Sub1 extends Base {
+    @Override
+    public int value() {
+        return 1;
+    }
+
+    private int secret() {
+        return 10;
+    }
+}
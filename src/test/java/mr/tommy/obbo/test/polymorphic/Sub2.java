@@ -0,0 +1,12 @@
+package mr.tommy.obbo.test.polymorphic;
+
+public class Sub2 extends Base {
+    @Override
+    public int value() {
+        return 2;
+    }
+
+    private int secret() {
+        return 20;
+    }
+}
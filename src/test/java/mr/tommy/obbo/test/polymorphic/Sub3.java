@@ -0,0 +1,12 @@
+package mr.tommy.obbo.test.polymorphic;
+
+public class Sub3 extends Base {
+    @Override
+    public int value() {
+        return 3;
+    }
+
+    private int secret() {
+        return 30;
+    }
+}
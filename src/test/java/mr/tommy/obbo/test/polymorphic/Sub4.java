@@ -0,0 +1,12 @@
+package mr.tommy.obbo.test.polymorphic;
+
+public class Sub4 extends Base {
+    @Override
+    public int value() {
+        return 4;
+    }
+
+    private int secret() {
+        return 40;
+    }
+}
@@ -0,0 +1,12 @@
+package mr.tommy.obbo.test.polymorphic;
+
+public class Sub5 extends Base {
+    @Override
+    public int value() {
+        return 5;
+    }
+
+    private int secret() {
+        return 50;
+    }
+}
@@ -0,0 +1,12 @@
+package mr.tommy.obbo.test.polymorphic;
+
+public class Sub6 extends Base {
+    @Override
+    public int value() {
+        return 6;
+    }
+
+    private int secret() {
+        return 60;
+    }
+}
@@ -0,0 +1,12 @@
+package mr.tommy.obbo.test.polymorphic;
+
+import mr.tommy.obbo.entity.Proxy;
+
+@Proxy("@base@.polymorphic.Base")
+public interface Wrapper {
+    int value();
+
+    int secret();
+
+    int hidden();
+}
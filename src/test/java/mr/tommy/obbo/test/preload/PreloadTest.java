@@ -0,0 +1,103 @@
+package mr.tommy.obbo.test.preload;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.Provider;
+import mr.tommy.obbo.mapping.resolver.RetentionType;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.test.overload.Wrapper;
+import mr.tommy.obbo.test.overload.v1.C1;
+import org.junit.Assert;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PreloadTest {
+    private static final String JSON = "{"
+        + "\"variables\": {"
+        + "  \"root\": \"mr.tommy\","
+        + "  \"base\": \"@root@.obbo.test\","
+        + "  \"pkg\": \"@base@.overload\","
+        + "  \"version\": \"v1\","
+        + "  \"loop1\": \"@loop2@\","
+        + "  \"loop2\": \"@loop1@\""
+        + "},"
+        + "\"replacements\": {"
+        + "  \"@pkg@.@version@.C1\": ["
+        + "    {\"method\": \"value\", \"descriptor\": \"(I)I\", \"original\": \"a\"},"
+        + "    {\"method\": \"value\", \"descriptor\": \"(Ljava/lang/String;)Ljava/lang/String;\", \"original\": \"b\"},"
+        + "    {\"method\": \"value\", \"original\": \"d\"},"
+        + "    {\"type\": \"field\", \"name\": \"count\", \"original\": \"c\"}"
+        + "  ]"
+        + "}}";
+
+    private static void assertResolves(JsonResolver resolver) {
+        Wrapper wrapper = new Obbo(resolver).wrap(Wrapper.class, new C1());
+        Assert.assertEquals(4, wrapper.value(2));
+        Assert.assertEquals("b!", wrapper.value("b"));
+        Assert.assertEquals("d", wrapper.value());
+        Assert.assertEquals(7, wrapper.count());
+    }
+
+    @org.junit.Test
+    public void test() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            JsonResolver resolver = JsonResolver.of(new StringReader(JSON));
+            //The cyclic variables are left to their first use.
+            resolver.preload(pool);
+            assertResolves(resolver);
+
+            InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+            Assert.assertNotNull(stream);
+            JsonResolver json = JsonResolver.of(new InputStreamReader(stream));
+            json.preload(pool);
+            assertResolves(json);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @org.junit.Test
+    public void cached() {
+        JsonResolver resolver = JsonResolver.of(new StringReader(JSON));
+        AtomicInteger calls = new AtomicInteger();
+        resolver.registerProvider("version", Provider.of(() -> {
+            calls.incrementAndGet();
+            return "v1";
+        }, RetentionType.CACHED));
+
+        resolver.preload();
+        Assert.assertEquals(1, calls.get());
+        assertResolves(resolver);
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @org.junit.Test(timeout = 10000)
+    public void reentrant() {
+        JsonResolver resolver = JsonResolver.of(new StringReader(JSON));
+        ThreadLocal<Boolean> resolving = ThreadLocal.withInitial(() -> false);
+        //Resolves a field from the workers building the class infos.
+        resolver.registerProvider("version", Provider.of(() -> {
+            if (!resolving.get()) {
+                resolving.set(true);
+                try {
+                    resolver.resolveField(C1.class, "count");
+                } finally {
+                    resolving.set(false);
+                }
+            }
+            return "v1";
+        }, RetentionType.LAZY));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            resolver.preload(pool);
+            assertResolves(resolver);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
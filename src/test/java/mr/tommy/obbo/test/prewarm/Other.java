@@ -0,0 +1,8 @@
+package mr.tommy.obbo.test.prewarm;
+
+import mr.tommy.obbo.entity.Proxy;
+
+@Proxy("@base@.prewarm.v1.C2")
+public interface Other {
+    String name();
+}
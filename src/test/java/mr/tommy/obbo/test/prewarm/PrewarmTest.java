@@ -0,0 +1,41 @@
+package mr.tommy.obbo.test.prewarm;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.reflection.FreezeMode;
+import mr.tommy.obbo.reflection.PrewarmReport;
+import mr.tommy.obbo.test.prewarm.v1.C1;
+import org.junit.Assert;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Set;
+
+public class PrewarmTest {
+    @org.junit.Test
+    public void test() {
+        InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+        Assert.assertNotNull(stream);
+        Obbo obbo = new Obbo(JsonResolver.of(new InputStreamReader(stream)));
+
+        PrewarmReport report = obbo.prewarm(Wrapper.class);
+        Assert.assertEquals(Set.of(Wrapper.class, Other.class), report.getInterfaces());
+        //Two classes, four methods of the wrapper and one of the other.
+        Assert.assertEquals(7, report.getEntries().size());
+        Assert.assertFalse(report.isSuccessful());
+
+        List<PrewarmReport.Entry> failures = report.getFailures();
+        Assert.assertEquals(1, failures.size());
+        Assert.assertEquals("missing", failures.get(0).getMethod().getName());
+        Assert.assertTrue(failures.get(0).getError() instanceof NoSuchMethodException);
+
+        //Everything used was linked, so it keeps working once frozen.
+        obbo.freeze(FreezeMode.FAIL_FAST);
+        Wrapper wrapper = obbo.wrap(Wrapper.class, new C1());
+        Assert.assertEquals(3, wrapper.count());
+        Assert.assertEquals("c2", wrapper.other().name());
+        Assert.assertEquals("hello", wrapper.greeting());
+        Assert.assertThrows(IllegalStateException.class, () -> obbo.prewarm(Wrapper.class));
+    }
+}
@@ -0,0 +1,18 @@
+package mr.tommy.obbo.test.prewarm;
+
+import mr.tommy.obbo.entity.FieldProxy;
+import mr.tommy.obbo.entity.Proxy;
+
+@Proxy("@base@.prewarm.v1.C1")
+public interface Wrapper {
+    Other other();
+
+    @FieldProxy
+    int count();
+
+    String missing();
+
+    default String greeting() {
+        return "hello";
+    }
+}
@@ -0,0 +1,9 @@
+package mr.tommy.obbo.test.prewarm.v1;
+
+public class C1 {
+    private int count = 3;
+
+    public C2 other() {
+        return new C2();
+    }
+}
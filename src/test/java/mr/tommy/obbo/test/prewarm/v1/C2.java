@@ -0,0 +1,7 @@
+package mr.tommy.obbo.test.prewarm.v1;
+
+public class C2 {
+    public String name() {
+        return "c2";
+    }
+}
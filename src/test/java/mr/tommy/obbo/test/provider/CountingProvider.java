@@ -0,0 +1,25 @@
+package mr.tommy.obbo.test.provider;
+
+import mr.tommy.obbo.mapping.resolver.Provider;
+import mr.tommy.obbo.mapping.resolver.RetentionType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CountingProvider implements Provider {
+    static final AtomicInteger instances = new AtomicInteger();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    public CountingProvider() {
+        instances.incrementAndGet();
+    }
+
+    @Override
+    public String get() {
+        return "v" + calls.incrementAndGet();
+    }
+
+    @Override
+    public RetentionType retentionType() {
+        return RetentionType.LAZY;
+    }
+}
@@ -0,0 +1,102 @@
+package mr.tommy.obbo.test.provider;
+
+import com.google.gson.JsonParser;
+import mr.tommy.obbo.mapping.resolver.Provider;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.util.Utils;
+import org.junit.Assert;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class ProviderTest {
+    private final JsonResolver resolver = JsonResolver.of(new StringReader("{\"variables\": {}, \"replacements\": {}}"));
+
+    @org.junit.Test
+    public void delegate() {
+        Provider provider = resolver.getFactory().from(JsonParser.parseString(
+            "{\"provider\": \"mr.tommy.obbo.test.provider.CountingProvider\", \"retention\": \"lazy\"}"));
+
+        int instances = CountingProvider.instances.get();
+        Assert.assertEquals("v1", provider.get());
+        Assert.assertEquals("v2", provider.get());
+        Assert.assertEquals(instances + 1, CountingProvider.instances.get());
+    }
+
+    @org.junit.Test
+    public void staticMethod() throws InterruptedException {
+        Provider provider = resolver.getFactory().from(JsonParser.parseString(
+            "{\"provider\": \"mr.tommy.obbo.test.provider.Versions\", \"type\": \"static\", \"value\": \"name\","
+                + " \"retention\": \"versioned\", \"version\": \"version\"}"));
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                String value = provider.get();
+                synchronized (values) {
+                    values.add(value);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(8, values.size());
+        Assert.assertTrue(values.stream().allMatch("v0"::equals));
+        Assert.assertEquals(1, Versions.calls.get());
+
+        Assert.assertEquals("v0", provider.get());
+        Versions.version = 1;
+        Assert.assertEquals("v1", provider.get());
+        Assert.assertEquals(2, Versions.calls.get());
+    }
+
+    @org.junit.Test
+    public void failureRemembered() {
+        Provider provider = resolver.getFactory().from(JsonParser.parseString(
+            "{\"provider\": \"mr.tommy.obbo.test.provider.Missing\", \"retention\": \"lazy\"}"));
+
+        AtomicInteger warnings = new AtomicInteger();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getLevel() == Level.WARNING) warnings.incrementAndGet();
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Utils.logger().addHandler(handler);
+        try {
+            for (int i = 0; i < 5; i++) {
+                Assert.assertNull(provider.get());
+            }
+        } finally {
+            Utils.logger().removeHandler(handler);
+        }
+        //Resolved and logged once, not on every evaluation.
+        Assert.assertEquals(1, warnings.get());
+    }
+}
@@ -0,0 +1,18 @@
+package mr.tommy.obbo.test.provider;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Versions {
+    static final AtomicInteger calls = new AtomicInteger();
+    static volatile long version;
+
+    public static String name() throws InterruptedException {
+        calls.incrementAndGet();
+        Thread.sleep(300);
+        return "v" + version;
+    }
+
+    public static long version() {
+        return version;
+    }
+}
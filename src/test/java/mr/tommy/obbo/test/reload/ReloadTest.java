@@ -0,0 +1,71 @@
+package mr.tommy.obbo.test.reload;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.mapping.resolver.json.MappingWatcher;
+import mr.tommy.obbo.reflection.Resolution;
+import mr.tommy.obbo.test.reload.v1.C1;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class ReloadTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String mappings(String original) {
+        return "{\"variables\": {\"pkg\": \"mr.tommy.obbo.test.reload.v1\"}, \"replacements\": {"
+            + "\"@pkg@.C1\": [{\"method\": \"value\", \"original\": \"" + original + "\"}]}}";
+    }
+
+    private static void write(Path file, String json) throws IOException {
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @org.junit.Test
+    public void reload() throws Exception {
+        Path file = folder.newFile("mappings.json").toPath();
+        write(file, mappings("a"));
+        JsonResolver resolver = JsonResolver.of(file);
+        Obbo obbo = new Obbo(resolver);
+
+        Wrapper wrapper = obbo.wrap(Wrapper.class, new C1());
+        Assert.assertEquals(1, wrapper.value());
+        Assert.assertEquals("other", wrapper.other());
+        Resolution other = obbo.getLinker()
+            .binding(Wrapper.class, Wrapper.class.getMethod("other"))
+            .resolution(C1.class);
+
+        write(file, mappings("b"));
+        resolver.reload(file);
+        Assert.assertEquals(2, wrapper.value());
+        Assert.assertSame(other, obbo.getLinker()
+            .binding(Wrapper.class, Wrapper.class.getMethod("other"))
+            .resolution(C1.class));
+    }
+
+    @org.junit.Test
+    public void watch() throws Exception {
+        Path file = folder.newFile("watched.json").toPath();
+        write(file, mappings("a"));
+        JsonResolver resolver = JsonResolver.of(file);
+        Wrapper wrapper = new Obbo(resolver).wrap(Wrapper.class, new C1());
+        Assert.assertEquals(1, wrapper.value());
+
+        try (MappingWatcher ignored = resolver.watch(file)) {
+            write(file, "{ broken");
+            write(file, mappings("c"));
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (wrapper.value() != 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assert.assertEquals(3, wrapper.value());
+        }
+    }
+}
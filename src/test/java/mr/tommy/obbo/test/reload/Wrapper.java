@@ -0,0 +1,10 @@
+package mr.tommy.obbo.test.reload;
+
+import mr.tommy.obbo.entity.Proxy;
+
+@Proxy("@pkg@.C1")
+public interface Wrapper {
+    int value();
+
+    String other();
+}
@@ -0,0 +1,19 @@
+package mr.tommy.obbo.test.reload.v1;
+
+public class C1 {
+    public int a() {
+        return 1;
+    }
+
+    public int b() {
+        return 2;
+    }
+
+    public int c() {
+        return 3;
+    }
+
+    public String other() {
+        return "other";
+    }
+}
@@ -0,0 +1,100 @@
+package mr.tommy.obbo.test.retention;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.Provider;
+import mr.tommy.obbo.mapping.resolver.RetainedValue;
+import mr.tommy.obbo.mapping.resolver.RetentionType;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.test.invalidate.Wrapper;
+import mr.tommy.obbo.test.invalidate.v1.C1;
+import org.junit.Assert;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+public class RetentionTest {
+    /**
+     * @return a wrapper whose member is named by the given provider.
+     */
+    private static Wrapper wrapper(Provider member) {
+        InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+        Assert.assertNotNull(stream);
+        JsonResolver resolver = JsonResolver.of(new InputStreamReader(stream));
+        resolver.registerProvider("member", member);
+        return new Obbo(resolver).wrap(Wrapper.class, new C1());
+    }
+
+    @org.junit.Test
+    public void expiring() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        Provider provider = Provider.expiring(() -> "v" + calls.incrementAndGet(), Duration.ofMillis(50));
+        Assert.assertEquals(RetentionType.EXPIRING, provider.retentionType());
+
+        Assert.assertEquals("v1", provider.get());
+        Assert.assertEquals("v1", provider.get());
+        Thread.sleep(100);
+        Assert.assertEquals("v2", provider.get());
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @org.junit.Test
+    public void versioned() {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicLong version = new AtomicLong();
+        Provider provider = Provider.versioned(() -> "v" + calls.incrementAndGet(), version::get);
+        Assert.assertEquals(RetentionType.VERSIONED, provider.retentionType());
+
+        Assert.assertEquals("v1", provider.get());
+        Assert.assertEquals("v1", provider.get());
+        version.incrementAndGet();
+        Assert.assertEquals("v2", provider.get());
+        Assert.assertEquals("v2", provider.get());
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @org.junit.Test
+    public void failedNotRetained() {
+        Provider provider = Provider.of(() -> "v", RetentionType.CACHED);
+        RetainedValue retained = new RetainedValue();
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<String> loader = () -> calls.incrementAndGet() == 1 ? null : "v";
+
+        //The first load failed, it's loaded again.
+        Assert.assertNull(retained.get(provider, loader));
+        Assert.assertEquals("v", retained.get(provider, loader));
+        Assert.assertEquals("v", retained.get(provider, loader));
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @org.junit.Test
+    public void wrappedExpiring() throws InterruptedException {
+        AtomicReference<String> member = new AtomicReference<>("a");
+        Wrapper wrapper = wrapper(Provider.expiring(member::get, Duration.ofMillis(50)));
+
+        Assert.assertEquals(1, wrapper.value());
+        //Retained until the TTL expires.
+        member.set("b");
+        Assert.assertEquals(1, wrapper.value());
+        Thread.sleep(100);
+        Assert.assertEquals(2, wrapper.value());
+    }
+
+    @org.junit.Test
+    public void wrappedVersioned() {
+        AtomicReference<String> member = new AtomicReference<>("a");
+        AtomicLong version = new AtomicLong();
+        Wrapper wrapper = wrapper(Provider.versioned(member::get, version::get));
+
+        Assert.assertEquals(1, wrapper.value());
+        //Retained until the version changes.
+        member.set("b");
+        Assert.assertEquals(1, wrapper.value());
+        version.incrementAndGet();
+        Assert.assertEquals(2, wrapper.value());
+    }
+}
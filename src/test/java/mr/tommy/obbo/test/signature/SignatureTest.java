@@ -0,0 +1,34 @@
+package mr.tommy.obbo.test.signature;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.reflection.Resolution;
+import mr.tommy.obbo.test.signature.v1.C1;
+import org.junit.Assert;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+public class SignatureTest {
+    @org.junit.Test
+    public void test() throws Exception {
+        InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json");
+        Assert.assertNotNull(stream);
+        JsonResolver resolver = JsonResolver.of(new InputStreamReader(stream));
+        Obbo obbo = new Obbo(resolver);
+        obbo.setSignatureFallback(true);
+
+        Wrapper wrapper = obbo.wrap(Wrapper.class, new C1());
+        Assert.assertEquals(1, wrapper.value());
+        Assert.assertEquals(3, wrapper.staticValue());
+        Assert.assertEquals("b", wrapper.name());
+        Assert.assertThrows(NoSuchMethodError.class, wrapper::ambiguous);
+
+        Resolution resolution = obbo.getLinker()
+            .binding(Wrapper.class, Wrapper.class.getMethod("value"))
+            .resolution(C1.class);
+        Assert.assertNotNull(resolution);
+        Assert.assertEquals(Resolution.Strategy.SIGNATURE, resolution.getStrategy());
+        Assert.assertEquals("a", resolution.getMember().getName());
+    }
+}
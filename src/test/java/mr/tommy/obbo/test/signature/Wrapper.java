@@ -0,0 +1,19 @@
+package mr.tommy.obbo.test.signature;
+
+import mr.tommy.obbo.entity.MemberHint;
+import mr.tommy.obbo.entity.Proxy;
+
+import java.lang.reflect.Modifier;
+
+@Proxy("@base@.signature.v1.C1")
+public interface Wrapper {
+    @MemberHint(excludedModifiers = Modifier.STATIC)
+    int value();
+
+    @MemberHint(modifiers = Modifier.STATIC)
+    int staticValue();
+
+    String name();
+
+    int ambiguous();
+}
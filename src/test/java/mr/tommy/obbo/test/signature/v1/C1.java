@@ -0,0 +1,15 @@
+package mr.tommy.obbo.test.signature.v1;
+
+public class C1 {
+    public int a() {
+        return 1;
+    }
+
+    public String b() {
+        return "b";
+    }
+
+    public static int c() {
+        return 3;
+    }
+}
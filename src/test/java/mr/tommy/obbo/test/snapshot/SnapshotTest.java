@@ -0,0 +1,88 @@
+package mr.tommy.obbo.test.snapshot;
+
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.test.snapshot.v1.C1;
+import mr.tommy.obbo.test.snapshot.v1.Mid;
+import mr.tommy.obbo.test.snapshot.v1.Sub;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class SnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Obbo obbo(String count) {
+        return new Obbo(JsonResolver.of(new StringReader(
+            "{\"variables\": {\"pkg\": \"mr.tommy.obbo.test.snapshot.v1\"}, \"replacements\": {\"@pkg@.C1\": ["
+                + "{\"method\": \"value\", \"descriptor\": \"(I)I\", \"original\": \"a\"},"
+                + "{\"method\": \"value\", \"descriptor\": \"(Ljava/lang/String;)\", \"original\": \"b\"},"
+                + "{\"type\": \"field\", \"name\": \"count\", \"original\": \"" + count + "\"}]}}")));
+    }
+
+    private static Path save(Path file) throws Exception {
+        Obbo obbo = obbo("c");
+        Wrapper wrapper = obbo.wrap(Wrapper.class, new C1());
+        Assert.assertEquals(4, wrapper.value(2));
+        Assert.assertEquals("b!", wrapper.value("b"));
+        Assert.assertEquals(7, wrapper.count());
+        Assert.assertEquals(3, obbo.saveSnapshot(file));
+        return file;
+    }
+
+    @org.junit.Test
+    public void restore() throws Exception {
+        Path file = save(folder.getRoot().toPath().resolve("linkage.json"));
+
+        Obbo obbo = obbo("c");
+        Assert.assertEquals(3, obbo.loadSnapshot(file));
+        Assert.assertNotNull(obbo.getLinker()
+            .binding(Wrapper.class, Wrapper.class.getMethod("count"))
+            .resolution(C1.class));
+
+        Wrapper wrapper = obbo.wrap(Wrapper.class, new C1());
+        Assert.assertEquals(4, wrapper.value(2));
+        Assert.assertEquals("b!", wrapper.value("b"));
+        Assert.assertEquals(7, wrapper.count());
+    }
+
+    @org.junit.Test
+    public void changedEntry() throws Exception {
+        Path file = save(folder.getRoot().toPath().resolve("linkage.json"));
+
+        //Only the entry of the field changed, it's resolved again.
+        Obbo obbo = obbo("x");
+        Assert.assertEquals(2, obbo.loadSnapshot(file));
+
+        Wrapper wrapper = obbo.wrap(Wrapper.class, new C1());
+        Assert.assertEquals(4, wrapper.value(2));
+        Assert.assertEquals(3, wrapper.count());
+    }
+
+    @org.junit.Test
+    public void changedHierarchy() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("linkage.json");
+        Obbo obbo = obbo("c");
+        Wrapper wrapper = obbo.wrap(Wrapper.class, new Sub());
+        Assert.assertEquals(4, wrapper.value(2));
+        Assert.assertEquals(1, obbo.saveSnapshot(file));
+
+        //A class between the receiver and the owner of the member changed.
+        String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        String changed = json.replaceAll("(\"" + Mid.class.getName() + "\":\")[^\"]*", "$10@0");
+        Assert.assertNotEquals(json, changed);
+        Files.write(file, changed.getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(0, obbo("c").loadSnapshot(file));
+    }
+
+    @org.junit.Test
+    public void missing() throws Exception {
+        Assert.assertEquals(0, obbo("c").loadSnapshot(folder.getRoot().toPath().resolve("missing.json")));
+    }
+}
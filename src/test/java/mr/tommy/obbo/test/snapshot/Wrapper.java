@@ -0,0 +1,14 @@
+package mr.tommy.obbo.test.snapshot;
+
+import mr.tommy.obbo.entity.FieldProxy;
+import mr.tommy.obbo.entity.Proxy;
+
+@Proxy("@pkg@.C1")
+public interface Wrapper {
+    int value(int i);
+
+    String value(String s);
+
+    @FieldProxy
+    int count();
+}
@@ -0,0 +1,14 @@
+package mr.tommy.obbo.test.snapshot.v1;
+
+public class C1 {
+    private int c = 7;
+    private int x = 3;
+
+    public int a(int i) {
+        return i * 2;
+    }
+
+    public String b(String s) {
+        return s + "!";
+    }
+}
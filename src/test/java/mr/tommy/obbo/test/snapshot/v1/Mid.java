@@ -0,0 +1,4 @@
+package mr.tommy.obbo.test.snapshot.v1;
+
+public class Mid extends C1 {
+}
@@ -0,0 +1,4 @@
+package mr.tommy.obbo.test.snapshot.v1;
+
+public class Sub extends Mid {
+}
@@ -0,0 +1,68 @@
+package mr.tommy.obbo.test.streaming;
+
+import com.google.gson.JsonParseException;
+import mr.tommy.obbo.Obbo;
+import mr.tommy.obbo.mapping.resolver.json.JsonResolver;
+import mr.tommy.obbo.test.overload.Wrapper;
+import mr.tommy.obbo.test.overload.v1.C1;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+public class StreamingTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] resolverJson() throws IOException {
+        try (InputStream stream = ClassLoader.getSystemClassLoader().getResourceAsStream("resolver.json")) {
+            Assert.assertNotNull(stream);
+            return stream.readAllBytes();
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static void assertResolves(JsonResolver resolver) {
+        Wrapper wrapper = new Obbo(resolver).wrap(Wrapper.class, new C1());
+        Assert.assertEquals(4, wrapper.value(2));
+        Assert.assertEquals("b!", wrapper.value("b"));
+        Assert.assertEquals("d", wrapper.value());
+        Assert.assertEquals(7, wrapper.count());
+    }
+
+    @org.junit.Test
+    public void gzip() throws IOException {
+        Path file = folder.newFile("resolver.json.gz").toPath();
+        Files.write(file, gzip(resolverJson()));
+        assertResolves(JsonResolver.of(file));
+        assertResolves(JsonResolver.of(new ByteArrayInputStream(gzip(resolverJson()))));
+        assertResolves(JsonResolver.of(new ByteArrayInputStream(resolverJson())));
+    }
+
+    @org.junit.Test
+    public void malformed() throws IOException {
+        Assert.assertThrows(JsonParseException.class, () -> JsonResolver.of(new StringReader(
+            "{\"replacements\": {\"a.B\": [], \"a.B\": []}}")));
+        Assert.assertThrows(JsonParseException.class, () -> JsonResolver.of(new StringReader(
+            "{\"replacements\": {\"a.B\": [{\"method\": \"a\"}")));
+
+        Path file = folder.newFile("empty.json").toPath();
+        Assert.assertThrows(IOException.class, () -> JsonResolver.of(file));
+    }
+}
@@ -0,0 +1,66 @@
+package mr.tommy.obbo.test.template;
+
+import mr.tommy.obbo.mapping.resolver.Provider;
+import mr.tommy.obbo.mapping.resolver.Template;
+import org.junit.Assert;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class TemplateTest {
+    @org.junit.Test
+    public void test() {
+        AtomicInteger counter = new AtomicInteger();
+        Map<String, Provider> providers = new HashMap<>();
+        providers.put("base", Provider.of("a.b"));
+        providers.put("pkg", Provider.of("@base@.c"));
+        providers.put("lazy", Provider.of(() -> "@base@" + counter.incrementAndGet()));
+
+        Template cached = Template.compile("@pkg@.D", providers::get);
+        Assert.assertTrue(cached.isConstant());
+        Assert.assertEquals("a.b.c.D", cached.evaluate());
+
+        Template lazy = Template.compile("@pkg@.@lazy@", providers::get);
+        Assert.assertFalse(lazy.isConstant());
+        Assert.assertEquals("a.b.c.a.b1", lazy.evaluate());
+        Assert.assertEquals("a.b.c.a.b2", lazy.evaluate());
+
+        Template unknown = Template.compile("@later@.E", providers::get);
+        Assert.assertEquals("later.E", unknown.evaluate());
+        providers.put("later", Provider.of("f"));
+        Assert.assertEquals("f.E", unknown.evaluate());
+
+        Assert.assertFalse(Template.hasVariables("user@host"));
+        Assert.assertEquals("a@b", Template.compile("a@b", providers::get).evaluate());
+
+        providers.put("loop", Provider.of("@loop@"));
+        Assert.assertThrows(IllegalStateException.class, () -> Template.compile("@loop@", providers::get));
+    }
+
+    @org.junit.Test
+    public void lazyValueCompiledOnce() {
+        AtomicInteger lookups = new AtomicInteger();
+        AtomicInteger version = new AtomicInteger();
+        Map<String, Provider> providers = new HashMap<>();
+        providers.put("base", Provider.of("a.b"));
+        providers.put("lazy", Provider.of(() -> "@base@.v" + version.get()));
+        Function<String, Provider> counting = name -> {
+            lookups.incrementAndGet();
+            return providers.get(name);
+        };
+
+        Template template = Template.compile("@lazy@", counting);
+        Assert.assertEquals("a.b.v0", template.evaluate());
+        int compiled = lookups.get();
+        Assert.assertEquals("a.b.v0", template.evaluate());
+        Assert.assertEquals("a.b.v0", template.evaluate());
+        //The same value is not compiled again.
+        Assert.assertEquals(compiled, lookups.get());
+
+        version.incrementAndGet();
+        Assert.assertEquals("a.b.v1", template.evaluate());
+        Assert.assertTrue(lookups.get() > compiled);
+    }
+}